@@ -0,0 +1,117 @@
+package com.game.connect4.benchmarks;
+
+import com.game.connect4.ai.HeuristicMoveOrderer;
+import com.game.connect4.ai.MoveOrderer;
+import com.game.connect4.ai.TranspositionTable;
+import com.game.connect4.model.Board;
+import com.game.connect4.model.Player;
+import com.game.connect4.utils.Constants;
+
+
+// The search as it was before PVS: iterative deepening, a full window for every root column,
+// and two-sided alpha-beta scored from the AI's point of view, with the same table and ordering.
+// Kept only so NodeCountBenchmark can compare the node counts of the two.
+public class AlphaBetaReference {
+    private final TranspositionTable transpositionTable = new TranspositionTable(4);
+    private final MoveOrderer moveOrderer = new HeuristicMoveOrderer();
+    private final int[][] moveBuffers = new int[Constants.ROWS * Constants.COLUMNS + 1][Constants.COLUMNS];
+    private long nodes;
+
+    public long getNodes() {
+        return nodes;
+    }
+
+
+    public void search(Board board, int maxDepth) {
+        int[] rootMoves = new int[Constants.COLUMNS];
+        int rootCount = moveOrderer.orderMoves(board, Player.AI, TranspositionTable.NO_MOVE, rootMoves);
+
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            for (int i = 0; i < rootCount; i++) {
+                int column = rootMoves[i];
+                int row = board.makeSearchMove(column, Player.AI);
+                if (!board.checkWin(row, column, Player.AI)) {
+                    minimax(board, depth - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+                }
+                board.undoSearchMove();
+            }
+        }
+    }
+
+    private int minimax(Board board, int depth, int alpha, int beta, boolean isMaximizing) {
+        nodes++;
+        if (depth == 0 || board.isFull()) {
+            return board.getPositionalScore();
+        }
+
+        long hash = board.getHash();
+        long entry = transpositionTable.probe(hash);
+        int ttMove = TranspositionTable.NO_MOVE;
+        if (entry != 0) {
+            ttMove = TranspositionTable.move(entry);
+            if (TranspositionTable.depth(entry) >= depth) {
+                int ttScore = TranspositionTable.score(entry);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT) {
+                    return ttScore;
+                } else if (bound == TranspositionTable.LOWER_BOUND) {
+                    alpha = Math.max(alpha, ttScore);
+                } else {
+                    beta = Math.min(beta, ttScore);
+                }
+                if (beta <= alpha) {
+                    return ttScore;
+                }
+            }
+        }
+
+        int originalAlpha = alpha;
+        int originalBeta = beta;
+        Player player = isMaximizing ? Player.AI : Player.PLAYER;
+        int[] moves = moveBuffers[board.getMoveCount()];
+        int moveCount = moveOrderer.orderMoves(board, player, ttMove, moves);
+        int bestMove = moves[0];
+        int bestScore = isMaximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+
+        for (int i = 0; i < moveCount; i++) {
+            int column = moves[i];
+            int row = board.makeSearchMove(column, player);
+
+            int score;
+            if (board.checkWin(row, column, player)) {
+                score = isMaximizing ? Constants.WIN_SCORE : Constants.LOSE_SCORE;
+            } else {
+                score = minimax(board, depth - 1, alpha, beta, !isMaximizing);
+            }
+
+            board.undoSearchMove();
+
+            if (isMaximizing ? score > bestScore : score < bestScore) {
+                bestScore = score;
+                bestMove = column;
+            }
+            if (isMaximizing) {
+                alpha = Math.max(alpha, score);
+            } else {
+                beta = Math.min(beta, score);
+            }
+
+            if (beta <= alpha) {
+                moveOrderer.recordCutoff(board, player, column, depth);
+                break;
+            }
+        }
+
+        int bound;
+        if (bestScore <= originalAlpha) {
+            bound = TranspositionTable.UPPER_BOUND;
+        } else if (bestScore >= originalBeta) {
+            bound = TranspositionTable.LOWER_BOUND;
+        } else {
+            bound = TranspositionTable.EXACT;
+        }
+        transpositionTable.store(hash, depth, bound, bestScore, bestMove);
+
+        return bestScore;
+    }
+}
@@ -0,0 +1,100 @@
+package com.game.connect4.benchmarks;
+
+import com.game.connect4.model.Board;
+import com.game.connect4.model.Player;
+import com.game.connect4.utils.Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+// Board primitives over every corpus position; one operation covers every column of every position
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BoardBenchmark {
+
+    private Board[] boards;
+    private Player[] toMove;
+
+    // Top disc of every non-empty column, for checkWin
+    private int[][] topRows;
+    private Player[][] topPlayers;
+
+    @Setup
+    public void setUp() {
+        List<Board> corpus = PositionCorpus.boards();
+        boards = corpus.toArray(new Board[0]);
+        toMove = new Player[boards.length];
+        topRows = new int[boards.length][Constants.COLUMNS];
+        topPlayers = new Player[boards.length][Constants.COLUMNS];
+
+        for (int i = 0; i < boards.length; i++) {
+            Board board = boards[i];
+            toMove[i] = board.getLastMove().getPlayer().getOpponent();
+            for (int column = 0; column < Constants.COLUMNS; column++) {
+                int row = Constants.ROWS - board.getColumnHeights()[column];
+                topRows[i][column] = row;
+                topPlayers[i][column] = row == Constants.ROWS ? Player.NONE : board.getCell(row, column);
+            }
+        }
+    }
+
+
+    @Benchmark
+    public void makeAndUndoMove(Blackhole blackhole) {
+        for (int i = 0; i < boards.length; i++) {
+            Board board = boards[i];
+            for (int column = 0; column < Constants.COLUMNS; column++) {
+                int row = board.makeMove(column, toMove[i]);
+                if (row != -1) {
+                    board.undoMove(column);
+                }
+                blackhole.consume(row);
+            }
+        }
+    }
+
+
+    // The allocation-free pair the search uses
+    @Benchmark
+    public void makeAndUndoSearchMove(Blackhole blackhole) {
+        for (int i = 0; i < boards.length; i++) {
+            Board board = boards[i];
+            for (int column = 0; column < Constants.COLUMNS; column++) {
+                int row = board.makeSearchMove(column, toMove[i]);
+                if (row != -1) {
+                    board.undoSearchMove();
+                }
+                blackhole.consume(row);
+            }
+        }
+    }
+
+
+    @Benchmark
+    public void checkWin(Blackhole blackhole) {
+        for (int i = 0; i < boards.length; i++) {
+            for (int column = 0; column < Constants.COLUMNS; column++) {
+                Player player = topPlayers[i][column];
+                if (player != Player.NONE) {
+                    blackhole.consume(boards[i].checkWin(topRows[i][column], column, player));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.game.connect4.benchmarks;
+
+import com.game.connect4.model.Board;
+import com.game.connect4.model.Game;
+import com.game.connect4.model.GameStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+// The positions every benchmark runs over, fixed so results from different builds compare. Each
+// is the columns played from the empty board: an odd number of plies from 5 to 27, so the AI is
+// to move as it is after the player's move, and nobody has won yet.
+public final class PositionCorpus {
+
+    private static final String[] MOVES = {
+            "41043",
+            "3214312",
+            "600133320",
+            "33436332402",
+            "6542351161552",
+            "523104341316434",
+            "52553444412423323",
+            "4621662334304143442",
+            "146230432314443232523",
+            "22433243263336246625650",
+            "3315023323014030020624526",
+            "333332624310450065001144414"
+    };
+
+    private PositionCorpus() {
+    }
+
+
+    public static int size() {
+        return MOVES.length;
+    }
+
+
+    // A fresh game for every call, so nothing cached on a game carries over between searches
+    public static Game game(int index, int difficultyLevel) {
+        Game game = new Game(difficultyLevel);
+        for (char move : MOVES[index].toCharArray()) {
+            if (game.makeMove(move - '0') == -1 || game.getStatus() != GameStatus.IN_PROGRESS) {
+                throw new IllegalStateException("Corpus position " + MOVES[index] + " is not playable");
+            }
+        }
+        return game;
+    }
+
+
+    public static List<Board> boards() {
+        List<Board> boards = new ArrayList<>();
+        for (int i = 0; i < MOVES.length; i++) {
+            boards.add(game(i, 1).getBoard());
+        }
+        return boards;
+    }
+}
@@ -0,0 +1,94 @@
+package com.game.connect4.benchmarks;
+
+import com.game.connect4.config.AIProperties;
+import com.game.connect4.model.Game;
+import com.game.connect4.service.AIService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+
+// One AI move per operation at each difficulty, cycling through the corpus with cold tables, so
+// a result reflects a real first search rather than one answered from the previous iteration.
+// moveLatency gives the time per move with percentiles; nodesPerSecond reports the search speed
+// as its "nodes" counter.
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class SearchBenchmark {
+
+    // Constants.EASY, MEDIUM, HARD, EXPERT and UNBEATABLE
+    @Param({"1", "3", "5", "7", "8"})
+    public int difficultyLevel;
+
+    private AIService aiService;
+    private int nextPosition;
+    private Game game;
+
+    @Setup(Level.Trial)
+    public void createService() {
+        AIProperties properties = new AIProperties();
+        // Single-threaded, so nodes per second is per core and does not depend on the machine
+        properties.setSearchThreads(1);
+        aiService = new AIService(properties);
+    }
+
+
+    @Setup(Level.Invocation)
+    public void nextPosition() {
+        aiService.clearSearchTables();
+        game = PositionCorpus.game(nextPosition, difficultyLevel);
+        nextPosition = (nextPosition + 1) % PositionCorpus.size();
+    }
+
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        aiService.shutdown();
+    }
+
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public int moveLatency() {
+        return aiService.findBestMove(game).getColumn();
+    }
+
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int nodesPerSecond(NodeCounter counter) {
+        long nodesBefore = aiService.getSearchStatistics().getNodes();
+        int column = aiService.findBestMove(game).getColumn();
+        counter.nodes += aiService.getSearchStatistics().getNodes() - nodesBefore;
+        return column;
+    }
+
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class NodeCounter {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+}
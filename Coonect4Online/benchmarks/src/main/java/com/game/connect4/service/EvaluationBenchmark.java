@@ -0,0 +1,77 @@
+package com.game.connect4.service;
+
+import com.game.connect4.benchmarks.PositionCorpus;
+import com.game.connect4.config.AIProperties;
+import com.game.connect4.model.Board;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+
+// Static evaluation of every corpus position. Lives in the service package because the
+// evaluation methods are package-private; the full-board scan is the reference the incremental
+// evaluation replaced, and the N-tuple network is the trained alternative to both.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EvaluationBenchmark {
+
+    private AIService aiService;
+    private AIService nTupleService;
+    private Board[] boards;
+
+    @Setup
+    public void setUp() {
+        aiService = new AIService(createProperties("heuristic"));
+        nTupleService = new AIService(createProperties("ntuple"));
+        boards = PositionCorpus.boards().toArray(new Board[0]);
+    }
+
+
+    private static AIProperties createProperties(String evaluator) {
+        AIProperties properties = new AIProperties();
+        properties.setTranspositionTableMb(1);
+        properties.setSolverTableMb(1);
+        properties.setPositionCacheMb(0);
+        properties.setSearchThreads(1);
+        properties.setEvaluator(evaluator);
+        return properties;
+    }
+
+
+    @Benchmark
+    public void evaluateBoard(Blackhole blackhole) {
+        for (Board board : boards) {
+            blackhole.consume(aiService.evaluateBoard(board, 0));
+        }
+    }
+
+
+    @Benchmark
+    public void evaluateBoardNTuple(Blackhole blackhole) {
+        for (Board board : boards) {
+            blackhole.consume(nTupleService.evaluateBoard(board, 0));
+        }
+    }
+
+
+    @Benchmark
+    public void evaluateBoardByScan(Blackhole blackhole) {
+        for (Board board : boards) {
+            blackhole.consume(aiService.evaluateBoardByScan(board, 0));
+        }
+    }
+}
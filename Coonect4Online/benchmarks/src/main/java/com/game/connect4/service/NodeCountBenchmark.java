@@ -0,0 +1,88 @@
+package com.game.connect4.service;
+
+import com.game.connect4.ai.SearchContext;
+import com.game.connect4.benchmarks.AlphaBetaReference;
+import com.game.connect4.benchmarks.PositionCorpus;
+import com.game.connect4.config.AIProperties;
+import com.game.connect4.model.Board;
+import com.game.connect4.model.Player;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+
+// Fixed-depth searches of the whole corpus, by the PVS search and by the plain alpha-beta it
+// replaced, both from cold tables. The node counts do not depend on the machine, so the "nodes"
+// counter of the two benchmarks compares how much each one searches. Lives in the service package
+// because searchToDepth is package-private.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class NodeCountBenchmark {
+
+    // Constants.EASY, MEDIUM, HARD and EXPERT's nominal depth
+    @Param({"1", "3", "5", "7"})
+    public int depth;
+
+    private AIService aiService;
+    private Board[] boards;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AIProperties properties = new AIProperties();
+        properties.setTranspositionTableMb(4);
+        properties.setSolverTableMb(1);
+        properties.setPositionCacheMb(0);
+        properties.setSearchThreads(1);
+        aiService = new AIService(properties);
+        boards = PositionCorpus.boards().toArray(new Board[0]);
+    }
+
+
+    @Benchmark
+    public void pvs(NodeCounter counter) {
+        for (Board board : boards) {
+            aiService.clearSearchTables();
+            SearchContext context = SearchContext.withoutDeadline();
+            aiService.searchToDepth(board, Player.AI, depth, context);
+            counter.nodes += context.getNodes();
+        }
+    }
+
+
+    @Benchmark
+    public void alphaBeta(NodeCounter counter) {
+        for (Board board : boards) {
+            AlphaBetaReference reference = new AlphaBetaReference();
+            reference.search(new Board(board), depth);
+            counter.nodes += reference.getNodes();
+        }
+    }
+
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class NodeCounter {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+}
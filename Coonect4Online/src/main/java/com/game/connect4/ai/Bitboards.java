@@ -0,0 +1,90 @@
+package com.game.connect4.ai;
+
+import com.game.connect4.utils.Constants;
+
+
+// Whole-board operations on the bitboard layout used by Board: bit col * 7 + height, with the
+// seventh bit of every column left empty so shifted lines never wrap into the next column.
+// "position" is the discs of one side and "mask" the discs of both.
+public final class Bitboards {
+    public static final int COLUMN_BITS = Constants.ROWS + 1;
+
+    public static final long BOTTOM_MASK = bottomMask();
+    public static final long BOARD_MASK = BOTTOM_MASK * ((1L << Constants.ROWS) - 1);
+
+    // Vertical, the two diagonals and horizontal
+    private static final int[] LINE_SHIFTS = {1, COLUMN_BITS - 1, COLUMN_BITS, COLUMN_BITS + 1};
+
+    private Bitboards() {
+    }
+
+
+    private static long bottomMask() {
+        long mask = 0;
+        for (int col = 0; col < Constants.COLUMNS; col++) {
+            mask |= 1L << (col * COLUMN_BITS);
+        }
+        return mask;
+    }
+
+
+    public static long columnMask(int column) {
+        return ((1L << Constants.ROWS) - 1) << (column * COLUMN_BITS);
+    }
+
+    public static long topCell(int column) {
+        return 1L << (Constants.ROWS - 1 + column * COLUMN_BITS);
+    }
+
+    public static boolean canPlay(long mask, int column) {
+        return (mask & topCell(column)) == 0;
+    }
+
+
+    // The cell a disc dropped in each non-full column would land on
+    public static long playableCells(long mask) {
+        return (mask + BOTTOM_MASK) & BOARD_MASK;
+    }
+
+
+    // Empty cells (reachable or not) that would complete a four for position
+    public static long winningCells(long position, long mask) {
+        // Vertical
+        long result = (position << 1) & (position << 2) & (position << 3);
+
+        // Horizontal, then the two diagonals
+        for (int shift = COLUMN_BITS - 1; shift <= COLUMN_BITS + 1; shift++) {
+            long pair = (position << shift) & (position << (2 * shift));
+            result |= pair & (position << (3 * shift));
+            result |= pair & (position >>> shift);
+            pair = (position >>> shift) & (position >>> (2 * shift));
+            result |= pair & (position << shift);
+            result |= pair & (position >>> (3 * shift));
+        }
+
+        return result & (BOARD_MASK ^ mask);
+    }
+
+
+    public static boolean isWin(long position) {
+        for (int shift : LINE_SHIFTS) {
+            long pair = position & (position >>> shift);
+            if ((pair & (pair >>> (2 * shift))) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    // The same bits with the columns in reverse order
+    public static long mirror(long bits) {
+        long column = (1L << COLUMN_BITS) - 1;
+        long result = 0;
+        for (int col = 0; col < Constants.COLUMNS; col++) {
+            long bitsOfColumn = (bits >>> (col * COLUMN_BITS)) & column;
+            result |= bitsOfColumn << ((Constants.COLUMNS - 1 - col) * COLUMN_BITS);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,11 @@
+package com.game.connect4.ai;
+
+import com.game.connect4.model.Board;
+
+
+// Static evaluation of a search leaf that is neither won nor drawn, from Player.AI's point of
+// view; AIService takes whichever one connect4.ai.evaluator names
+public interface Evaluator {
+
+    int evaluate(Board board);
+}
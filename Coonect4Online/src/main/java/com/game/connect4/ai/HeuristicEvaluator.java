@@ -0,0 +1,14 @@
+package com.game.connect4.ai;
+
+import com.game.connect4.model.Board;
+
+
+// The hand-written heuristic: centre column weights plus the four-cell window scores of
+// Constants.WINDOW_SCORES, which Board keeps up to date as discs are dropped and taken back
+public class HeuristicEvaluator implements Evaluator {
+
+    @Override
+    public int evaluate(Board board) {
+        return board.getPositionalScore();
+    }
+}
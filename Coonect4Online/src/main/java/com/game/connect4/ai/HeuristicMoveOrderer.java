@@ -0,0 +1,113 @@
+package com.game.connect4.ai;
+
+import com.game.connect4.model.Board;
+import com.game.connect4.model.Player;
+import com.game.connect4.utils.Constants;
+
+import java.util.Arrays;
+
+
+// Transposition table move first, then the two killer moves of this ply, then the rest by
+// history score with the static center-first order breaking ties
+public class HeuristicMoveOrderer implements MoveOrderer {
+    private static final int[] CENTER_FIRST = centerFirstOrder();
+
+    private static final int TT_MOVE_SCORE = 1 << 30;
+    private static final int FIRST_KILLER_SCORE = TT_MOVE_SCORE - 1;
+    private static final int SECOND_KILLER_SCORE = TT_MOVE_SCORE - 2;
+
+    // History scores are halved once any of them passes this, so they never overflow
+    private static final int HISTORY_LIMIT = 1 << 24;
+
+    private static final int MAX_PLY = Constants.ROWS * Constants.COLUMNS + 1;
+
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][] history = new int[2][Constants.COLUMNS * Constants.ROWS];
+    private final int[] scores = new int[Constants.COLUMNS];
+
+    public HeuristicMoveOrderer() {
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, TranspositionTable.NO_MOVE);
+        }
+    }
+
+
+    @Override
+    public int orderMoves(Board board, Player player, int ttMove, int[] moves) {
+        int ply = board.getMoveCount();
+        int[] heights = board.getColumnHeights();
+        int[] sideHistory = history[sideIndex(player)];
+
+        int count = 0;
+        for (int column : CENTER_FIRST) {
+            if (!board.isValidMove(column)) {
+                continue;
+            }
+
+            int score;
+            if (column == ttMove) {
+                score = TT_MOVE_SCORE;
+            } else if (column == killers[ply][0]) {
+                score = FIRST_KILLER_SCORE;
+            } else if (column == killers[ply][1]) {
+                score = SECOND_KILLER_SCORE;
+            } else {
+                score = sideHistory[column * Constants.ROWS + heights[column]];
+            }
+
+            // Insertion sort, stable so equal scores keep the center-first order
+            int i = count;
+            while (i > 0 && scores[i - 1] < score) {
+                scores[i] = scores[i - 1];
+                moves[i] = moves[i - 1];
+                i--;
+            }
+            scores[i] = score;
+            moves[i] = column;
+            count++;
+        }
+        return count;
+    }
+
+
+    @Override
+    public void recordCutoff(Board board, Player player, int column, int depth) {
+        int ply = board.getMoveCount();
+        if (killers[ply][0] != column) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = column;
+        }
+
+        int[] sideHistory = history[sideIndex(player)];
+        int index = column * Constants.ROWS + board.getColumnHeights()[column];
+        sideHistory[index] += depth * depth;
+        if (sideHistory[index] > HISTORY_LIMIT) {
+            for (int[] table : history) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] >>= 1;
+                }
+            }
+        }
+    }
+
+
+    private static int sideIndex(Player player) {
+        return player == Player.AI ? 0 : 1;
+    }
+
+
+    // Columns sorted by Constants.COLUMN_WEIGHTS, heaviest first, left to right on ties
+    private static int[] centerFirstOrder() {
+        Integer[] columns = new Integer[Constants.COLUMNS];
+        for (int col = 0; col < Constants.COLUMNS; col++) {
+            columns[col] = col;
+        }
+        Arrays.sort(columns, (a, b) -> Integer.compare(Constants.COLUMN_WEIGHTS[b], Constants.COLUMN_WEIGHTS[a]));
+
+        int[] order = new int[Constants.COLUMNS];
+        for (int i = 0; i < Constants.COLUMNS; i++) {
+            order[i] = columns[i];
+        }
+        return order;
+    }
+}
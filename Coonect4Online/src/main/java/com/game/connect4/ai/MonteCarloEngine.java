@@ -0,0 +1,391 @@
+package com.game.connect4.ai;
+
+import com.game.connect4.model.Board;
+import com.game.connect4.model.Player;
+import com.game.connect4.model.SearchResult;
+import com.game.connect4.utils.Constants;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+
+// Monte Carlo tree search with UCT for the Monte Carlo level. Every playout walks the tree to a
+// leaf, adds one node and plays the rest of the game out at random, except that a side always
+// takes an immediate win and blocks an immediate loss; the tree prunes its moves the same way.
+// The threads of the search pool share one tree: a thread counts its visit on the way down and
+// its reward on the way back, so until then the path looks like a loss to the others (a virtual
+// loss) and they spread out. The search stops at the playout limit or at the context's deadline,
+// whichever comes first, and plays the most visited column.
+//
+// The tree of each game's last move search is kept for its next move, and the search resumes from
+// the node of the position the game has reached, up to two plies below the last one searched.
+// Background searches (not parallel) neither use nor replace the kept trees, so pondering a reply
+// cannot throw away the tree of the move actually played. The kept trees are capped both in
+// number and in total nodes; the least recently used go first.
+public class MonteCarloEngine implements SearchEngine {
+    private static final int SIZE = Constants.ROWS * Constants.COLUMNS;
+
+    // UCT exploration constant, for rewards between 0 and 1
+    private static final double EXPLORATION = 1.0;
+
+    // Score of a column the playouts always win, kept well below the proven scores of minimax
+    private static final int SCORE_SCALE = 1000;
+
+    private static final int ONGOING = 0;
+    private static final int WIN = 1;
+    private static final int DRAW = 2;
+
+    private final ForkJoinPool pool;
+    private final int maxPlayouts;
+    private final long maxTreeNodes;
+    private final Map<String, Tree> trees;
+    private long treeNodes;
+
+    // pool may be null, which keeps every search on the calling thread
+    public MonteCarloEngine(ForkJoinPool pool, int maxPlayouts, int maxTrees, long maxTreeNodes) {
+        this.pool = pool;
+        this.maxPlayouts = maxPlayouts;
+        this.maxTreeNodes = maxTreeNodes;
+        this.trees = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Tree> eldest) {
+                if (size() <= maxTrees) {
+                    return false;
+                }
+                treeNodes -= eldest.getValue().nodes();
+                return true;
+            }
+        };
+    }
+
+
+    @Override
+    public SearchResult search(Board board, int difficultyLevel, Player player, String gameId, boolean parallel,
+                               SearchContext context) {
+        long position = board.getBitboard(player);
+        long mask = position | board.getBitboard(player.getOpponent());
+        boolean keepTree = parallel && gameId != null;
+        Node root = keepTree ? findRoot(gameId, position, mask) : new Node(-1, ONGOING);
+
+        context.armDeadline();
+        AtomicLong playouts = new AtomicLong();
+        AtomicInteger maxDepth = new AtomicInteger();
+        int threads = parallel && pool != null ? pool.getParallelism() : 1;
+
+        List<SearchContext> workers = new ArrayList<>();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int t = 1; t < threads; t++) {
+            SearchContext worker = context.forWorker(null, player);
+            try {
+                tasks.add(pool.submit(() -> run(root, position, mask, playouts, maxDepth, worker)));
+                workers.add(worker);
+            } catch (RejectedExecutionException e) {
+                // The pool is shutting down; search on this thread alone
+                break;
+            }
+        }
+        run(root, position, mask, playouts, maxDepth, context);
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        for (SearchContext worker : workers) {
+            context.merge(worker);
+        }
+
+        SearchResult result = result(board, difficultyLevel, root, maxDepth.get());
+        if (keepTree) {
+            keep(gameId, new Tree(position, mask, root, countNodes(root)));
+        }
+        return result;
+    }
+
+
+    // Forgets every kept tree
+    public void clear() {
+        synchronized (trees) {
+            trees.clear();
+            treeNodes = 0;
+        }
+    }
+
+
+    // Nodes in every kept tree together, for tests
+    long getTreeNodes() {
+        synchronized (trees) {
+            return treeNodes;
+        }
+    }
+
+
+    // The node of this position in the game's kept tree, or a new root. The game's tree is taken
+    // out until the search puts the new one back.
+    private Node findRoot(String gameId, long position, long mask) {
+        synchronized (trees) {
+            Tree tree = trees.remove(gameId);
+            if (tree == null) {
+                return new Node(-1, ONGOING);
+            }
+            treeNodes -= tree.nodes();
+            Node root = tree.find(position, mask);
+            return root != null ? root : new Node(-1, ONGOING);
+        }
+    }
+
+
+    private void keep(String gameId, Tree tree) {
+        synchronized (trees) {
+            Tree replaced = trees.put(gameId, tree);
+            treeNodes += tree.nodes() - (replaced == null ? 0 : replaced.nodes());
+            // Oldest first; a tree larger than the whole cap is not kept at all
+            Iterator<Map.Entry<String, Tree>> eldest = trees.entrySet().iterator();
+            while (treeNodes > maxTreeNodes && eldest.hasNext()) {
+                treeNodes -= eldest.next().getValue().nodes();
+                eldest.remove();
+            }
+        }
+    }
+
+
+    private static long countNodes(Node node) {
+        long nodes = 1;
+        Node[] children = node.children;
+        if (children != null) {
+            for (Node child : children) {
+                nodes += countNodes(child);
+            }
+        }
+        return nodes;
+    }
+
+
+    private void run(Node root, long position, long mask, AtomicLong playouts, AtomicInteger maxDepth,
+                     SearchContext context) {
+        Node[] path = new Node[SIZE + 1];
+        int deepest = 0;
+        try {
+            while (playouts.getAndIncrement() < maxPlayouts && !context.isTimeUp()) {
+                context.visitNode();
+                deepest = Math.max(deepest, playout(root, position, mask, path));
+            }
+        } catch (SearchAbortedException e) {
+            // Cancelled, or past the deadline; every finished playout is already in the tree
+        }
+        maxDepth.accumulateAndGet(deepest, Math::max);
+    }
+
+
+    // One selection, expansion, playout and backup; returns how deep in the tree it went
+    private static int playout(Node root, long position, long mask, Node[] path) {
+        int length = 0;
+        Node node = root;
+        Node.VISITS.incrementAndGet(node);
+        path[length++] = node;
+
+        while (node.outcome == ONGOING) {
+            Node[] children = node.children;
+            if (children == null) {
+                // A leaf is played out once before it gets children of its own
+                if (node != root && node.visits <= 1) {
+                    break;
+                }
+                children = expand(node, position, mask);
+            }
+            node = select(children, node.visits);
+            Node.VISITS.incrementAndGet(node);
+            path[length++] = node;
+
+            long cell = Bitboards.playableCells(mask) & Bitboards.columnMask(node.column);
+            long next = position ^ mask;
+            mask |= cell;
+            position = next;
+        }
+
+        // Reward in half points for the side that moved into the last node
+        int reward;
+        if (node.outcome == WIN) {
+            reward = 2;
+        } else if (node.outcome == DRAW) {
+            reward = 1;
+        } else {
+            reward = 2 - rollout(position, mask);
+        }
+        for (int i = length - 1; i >= 0; i--) {
+            Node.REWARD.addAndGet(path[i], reward);
+            reward = 2 - reward;
+        }
+        return length - 1;
+    }
+
+
+    private static Node[] expand(Node node, long position, long mask) {
+        synchronized (node) {
+            if (node.children == null) {
+                node.children = createChildren(position, mask);
+            }
+            return node.children;
+        }
+    }
+
+
+    private static Node[] createChildren(long position, long mask) {
+        long playable = Bitboards.playableCells(mask);
+        long wins = Bitboards.winningCells(position, mask) & playable;
+        long threats = Bitboards.winningCells(position ^ mask, mask) & playable;
+        // Only winning moves are worth trying if there are any, then only the blocking ones
+        long candidates = wins != 0 ? wins : threats != 0 ? threats : playable;
+
+        List<Node> children = new ArrayList<>();
+        for (int column : Solver.COLUMN_ORDER) {
+            long cell = candidates & Bitboards.columnMask(column);
+            if (cell == 0) {
+                continue;
+            }
+            int outcome = (wins & cell) != 0 ? WIN : (mask | cell) == Bitboards.BOARD_MASK ? DRAW : ONGOING;
+            children.add(new Node(column, outcome));
+        }
+        return children.toArray(new Node[0]);
+    }
+
+
+    // Upper confidence bound; unvisited children go first, in center-first order
+    private static Node select(Node[] children, int parentVisits) {
+        double logVisits = Math.log(Math.max(1, parentVisits));
+        Node best = children[0];
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (Node child : children) {
+            int visits = child.visits;
+            if (visits == 0) {
+                return child;
+            }
+            double value = child.reward / (2.0 * visits) + EXPLORATION * Math.sqrt(logVisits / visits);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+
+    // Plays random moves to the end of the game and returns the result for the side to move:
+    // 2 for a win, 1 for a draw and 0 for a loss
+    private static int rollout(long position, long mask) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int ply = 0; ; ply++) {
+            long playable = Bitboards.playableCells(mask);
+            if (playable == 0) {
+                return 1;
+            }
+            if ((Bitboards.winningCells(position, mask) & playable) != 0) {
+                return ply % 2 == 0 ? 2 : 0;
+            }
+
+            long threats = Bitboards.winningCells(position ^ mask, mask) & playable;
+            long cell = threats != 0 ? Long.lowestOneBit(threats) : randomCell(playable, random);
+            long next = position ^ mask;
+            mask |= cell;
+            position = next;
+        }
+    }
+
+
+    private static long randomCell(long cells, ThreadLocalRandom random) {
+        for (int skip = random.nextInt(Long.bitCount(cells)); skip > 0; skip--) {
+            cells &= cells - 1;
+        }
+        return Long.lowestOneBit(cells);
+    }
+
+
+    // Columns are scored by their average reward, mapped onto -SCORE_SCALE..SCORE_SCALE; the
+    // columns the tree pruned keep NO_SCORE
+    private static SearchResult result(Board board, int difficultyLevel, Node root, int depth) {
+        Node[] children = root.children;
+        if (children == null) {
+            throw SearchAbortedException.INSTANCE;
+        }
+
+        int[] columnScores = new int[Constants.COLUMNS];
+        Arrays.fill(columnScores, SearchResult.NO_SCORE);
+        Node best = null;
+        for (Node child : children) {
+            if (child.visits == 0) {
+                continue;
+            }
+            columnScores[child.column] = child.outcome == WIN ? Constants.WIN_SCORE
+                    : (int) Math.round((child.reward / (2.0 * child.visits) - 0.5) * 2 * SCORE_SCALE);
+            if (best == null || child.visits > best.visits) {
+                best = child;
+            }
+        }
+        if (best == null) {
+            throw SearchAbortedException.INSTANCE;
+        }
+        return new SearchResult(board, difficultyLevel, best.column, columnScores[best.column],
+                columnScores, depth);
+    }
+
+
+    private static final class Node {
+        static final AtomicIntegerFieldUpdater<Node> VISITS =
+                AtomicIntegerFieldUpdater.newUpdater(Node.class, "visits");
+        static final AtomicLongFieldUpdater<Node> REWARD =
+                AtomicLongFieldUpdater.newUpdater(Node.class, "reward");
+
+        final int column;
+        final int outcome;
+        volatile int visits;
+        // Half points for the side that moved into this node
+        volatile long reward;
+        volatile Node[] children;
+
+        Node(int column, int outcome) {
+            this.column = column;
+            this.outcome = outcome;
+        }
+    }
+
+
+    // The last position searched for a game and its tree, of the given number of nodes
+    private record Tree(long position, long mask, Node root, long nodes) {
+
+        // The node of this position at most two plies down, or null
+        Node find(long targetPosition, long targetMask) {
+            return find(root, position, mask, targetPosition, targetMask, 2);
+        }
+
+        private static Node find(Node node, long position, long mask, long targetPosition, long targetMask,
+                                 int plies) {
+            if (position == targetPosition && mask == targetMask) {
+                return node;
+            }
+            Node[] children = node.children;
+            if (plies == 0 || children == null || Long.bitCount(mask) >= Long.bitCount(targetMask)) {
+                return null;
+            }
+            for (Node child : children) {
+                long cell = Bitboards.playableCells(mask) & Bitboards.columnMask(child.column);
+                if ((targetMask & cell) == 0 || child.outcome != ONGOING) {
+                    continue;
+                }
+                Node found = find(child, position ^ mask, mask | cell, targetPosition, targetMask, plies - 1);
+                if (found != null) {
+                    return found;
+                }
+            }
+            return null;
+        }
+    }
+}
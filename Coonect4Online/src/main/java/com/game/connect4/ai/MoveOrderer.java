@@ -0,0 +1,16 @@
+package com.game.connect4.ai;
+
+import com.game.connect4.model.Board;
+import com.game.connect4.model.Player;
+
+
+// Decides the order in which a search node tries its columns. One instance serves a single
+// search thread, so implementations may keep per-search state such as killer moves.
+public interface MoveOrderer {
+
+    // Writes the valid columns into moves in search order and returns how many there are
+    int orderMoves(Board board, Player player, int ttMove, int[] moves);
+
+    // Called when trying column at this node produced a beta cutoff
+    void recordCutoff(Board board, Player player, int column, int depth);
+}
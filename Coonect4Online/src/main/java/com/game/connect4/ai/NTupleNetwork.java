@@ -0,0 +1,160 @@
+package com.game.connect4.ai;
+
+import com.game.connect4.model.Board;
+import com.game.connect4.model.Player;
+import com.game.connect4.utils.Constants;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+
+// N-tuple network evaluator. A tuple is a handful of cells with a table holding one weight for
+// every way those cells can be filled: empty, first player's disc, second player's disc, or empty
+// and playable right now, which is what tells a threat that can be met from one that cannot yet.
+// A position is worth the sum of the weights it looks up in every tuple and in every tuple's
+// mirror image. Values are from the point of view of the side that moved first, which in every game is
+// Player.PLAYER. The weights come from NTupleTrainer as integers scaled by WEIGHT_SCALE, so a leaf
+// costs a few hundred bit tests and table lookups.
+//
+//   file (gzip): magic, version, tuple count, then per tuple: cell count, the cells as bit
+//                indexes in the Bitboards layout, and 4^cells weights
+public class NTupleNetwork implements Evaluator {
+    public static final int WEIGHT_SCALE = 1000;
+
+    // Trained with NTupleTrainer's defaults
+    public static final String BUNDLED_RESOURCE = "/ntuple-weights.bin";
+
+    private static final int MAGIC = 0x4E545550;
+    private static final int VERSION = 1;
+
+    // Keeps every sum of weights far from the scores of won and lost positions
+    private static final int MAX_SCORE = Constants.WIN_SCORE / 10;
+
+    private final int[][] tuples;
+    private final int[][] weights;
+
+    public NTupleNetwork(int[][] tuples, int[][] weights) {
+        for (int t = 0; t < tuples.length; t++) {
+            if (weights[t].length != tableSize(tuples[t].length)) {
+                throw new IllegalArgumentException("Tuple " + t + " of " + tuples[t].length + " cells needs "
+                        + tableSize(tuples[t].length) + " weights, not " + weights[t].length);
+            }
+        }
+        this.tuples = tuples;
+        this.weights = weights;
+    }
+
+
+    public static NTupleNetwork bundled() {
+        try (InputStream in = NTupleNetwork.class.getResourceAsStream(BUNDLED_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("No N-tuple weights on the classpath at " + BUNDLED_RESOURCE);
+            }
+            return read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    public static NTupleNetwork read(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return read(in);
+        }
+    }
+
+
+    private static NTupleNetwork read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(new GZIPInputStream(in)));
+        if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+            throw new IOException("Not an N-tuple weights file");
+        }
+
+        int tupleCount = data.readInt();
+        int[][] tuples = new int[tupleCount][];
+        int[][] weights = new int[tupleCount][];
+        for (int t = 0; t < tupleCount; t++) {
+            tuples[t] = new int[data.readByte()];
+            for (int i = 0; i < tuples[t].length; i++) {
+                tuples[t][i] = data.readByte();
+            }
+            weights[t] = new int[tableSize(tuples[t].length)];
+            for (int i = 0; i < weights[t].length; i++) {
+                weights[t][i] = data.readInt();
+            }
+        }
+        return new NTupleNetwork(tuples, weights);
+    }
+
+
+    public void write(Path path) throws IOException {
+        try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(path))))) {
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+            data.writeInt(tuples.length);
+            for (int t = 0; t < tuples.length; t++) {
+                data.writeByte(tuples[t].length);
+                for (int cell : tuples[t]) {
+                    data.writeByte(cell);
+                }
+                for (int weight : weights[t]) {
+                    data.writeInt(weight);
+                }
+            }
+        }
+    }
+
+
+    @Override
+    public int evaluate(Board board) {
+        // Player.PLAYER moves first, so the AI's value is the negated one
+        return -evaluate(board.getBitboard(Player.PLAYER), board.getBitboard(Player.AI));
+    }
+
+
+    // first and second are the discs of the side that moved first and of the other side
+    public int evaluate(long first, long second) {
+        long playable = Bitboards.playableCells(first | second);
+        long low = first | playable;
+        long high = second | playable;
+        long mirroredLow = Bitboards.mirror(low);
+        long mirroredHigh = Bitboards.mirror(high);
+        int score = 0;
+        for (int t = 0; t < tuples.length; t++) {
+            score += weights[t][index(tuples[t], low, high)] + weights[t][index(tuples[t], mirroredLow, mirroredHigh)];
+        }
+        return Math.max(-MAX_SCORE, Math.min(MAX_SCORE, score));
+    }
+
+
+    public int getTupleCount() {
+        return tuples.length;
+    }
+
+
+    // The cells read as a base-4 number, two bits a cell: 0 empty, 1 first player, 2 second player
+    // and 3 playable. low is the first player's discs and the playable cells, high the second
+    // player's discs and the playable cells.
+    static int index(int[] cells, long low, long high) {
+        int index = 0;
+        for (int cell : cells) {
+            index = index << 2 | (int) (low >>> cell & 1) | (int) (high >>> cell & 1) << 1;
+        }
+        return index;
+    }
+
+
+    static int tableSize(int cells) {
+        return 1 << 2 * cells;
+    }
+}
@@ -0,0 +1,218 @@
+package com.game.connect4.ai;
+
+import com.game.connect4.utils.Constants;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+
+// Offline tool that trains the N-tuple network by self-play and writes its weights. It runs from
+// the executable jar through Spring Boot's PropertiesLauncher:
+//
+//   java -Dloader.main=com.game.connect4.ai.NTupleTrainer -cp target/connect4-<version>.jar \
+//        org.springframework.boot.loader.launch.PropertiesLauncher <weights file> [games] [seed]
+//
+// The tuples are random walks of neighbouring cells. Both sides play the network being trained:
+// a side takes an immediate win when it has one, otherwise plays a random move with probability
+// EXPLORATION and the move to the position the network values best for it the rest of the time.
+// After each of those greedy moves, the value of the position before it is moved towards the
+// value of the position after it (TD(0) on the positions after every move), and the last position
+// of a game towards the result. The network outputs tanh of the weight sum while training; the
+// sum alone orders positions the same way, so that is what gets written. The bundled
+// src/main/resources/ntuple-weights.bin was trained with the defaults.
+public class NTupleTrainer {
+    private static final int DEFAULT_GAMES = 1_500_000;
+    private static final long DEFAULT_SEED = 1;
+    private static final int PROGRESS_INTERVAL = 50_000;
+
+    private static final int TUPLE_COUNT = 32;
+    private static final int TUPLE_CELLS = 7;
+    private static final double EXPLORATION = 0.1;
+
+    // Decays linearly from the first to the second over the run
+    private static final double INITIAL_LEARNING_RATE = 0.004;
+    private static final double FINAL_LEARNING_RATE = 0.001;
+
+    private final int[][] tuples;
+    private final float[][] weights;
+    private final SplittableRandom random;
+    private double learningRate = INITIAL_LEARNING_RATE;
+
+    public NTupleTrainer(long seed) {
+        this.random = new SplittableRandom(seed);
+        this.tuples = createTuples(TUPLE_COUNT, TUPLE_CELLS, random);
+        this.weights = new float[tuples.length][];
+        for (int t = 0; t < tuples.length; t++) {
+            weights[t] = new float[NTupleNetwork.tableSize(tuples[t].length)];
+        }
+    }
+
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: NTupleTrainer <weights file> [games] [seed]");
+            System.exit(1);
+        }
+
+        Path path = Path.of(args[0]);
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_GAMES;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+
+        NTupleTrainer trainer = new NTupleTrainer(seed);
+        int[] results = new int[3];
+        for (int game = 1; game <= games; game++) {
+            trainer.learningRate = INITIAL_LEARNING_RATE
+                    + (FINAL_LEARNING_RATE - INITIAL_LEARNING_RATE) * game / games;
+            results[trainer.playGame() + 1]++;
+            if (game % PROGRESS_INTERVAL == 0) {
+                System.out.printf("%d games: first player won %d, drew %d, lost %d%n",
+                        game, results[2], results[1], results[0]);
+                results = new int[3];
+            }
+        }
+
+        trainer.toNetwork().write(path);
+        System.out.printf("Wrote %d tuples of %d cells to %s%n", TUPLE_COUNT, TUPLE_CELLS, path);
+    }
+
+
+    // Plays one game against itself, learning as it goes; returns 1 when the first player won,
+    // 0 for a draw and -1 when the second player won
+    public int playGame() {
+        long[] discs = new long[2];
+        boolean learning = false;
+        long previousFirst = 0;
+        long previousSecond = 0;
+
+        for (int ply = 0; ; ply++) {
+            int side = ply & 1;
+            long mask = discs[0] | discs[1];
+            long playable = Bitboards.playableCells(mask);
+            if (playable == 0) {
+                if (learning) {
+                    update(previousFirst, previousSecond, 0);
+                }
+                return 0;
+            }
+            if ((Bitboards.winningCells(discs[side], mask) & playable) != 0) {
+                int result = side == 0 ? 1 : -1;
+                if (learning) {
+                    update(previousFirst, previousSecond, result);
+                }
+                return result;
+            }
+
+            boolean greedy = random.nextDouble() >= EXPLORATION;
+            discs[side] |= greedy ? bestCell(discs, side, playable) : randomCell(playable);
+
+            // Learns only from the moves the network chose, not from the exploring ones
+            if (greedy && learning) {
+                update(previousFirst, previousSecond, value(discs[0], discs[1]));
+            }
+            learning = true;
+            previousFirst = discs[0];
+            previousSecond = discs[1];
+        }
+    }
+
+
+    public NTupleNetwork toNetwork() {
+        int[][] scaled = new int[weights.length][];
+        for (int t = 0; t < weights.length; t++) {
+            scaled[t] = new int[weights[t].length];
+            for (int i = 0; i < weights[t].length; i++) {
+                scaled[t][i] = Math.round(weights[t][i] * NTupleNetwork.WEIGHT_SCALE);
+            }
+        }
+        return new NTupleNetwork(tuples, scaled);
+    }
+
+
+    private long bestCell(long[] discs, int side, long playable) {
+        long best = 0;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (long cells = playable; cells != 0; cells &= cells - 1) {
+            long cell = Long.lowestOneBit(cells);
+            double value = side == 0 ? sum(discs[0] | cell, discs[1]) : -sum(discs[0], discs[1] | cell);
+            if (value > bestValue) {
+                bestValue = value;
+                best = cell;
+            }
+        }
+        return best;
+    }
+
+
+    private long randomCell(long cells) {
+        for (int skip = random.nextInt(Long.bitCount(cells)); skip > 0; skip--) {
+            cells &= cells - 1;
+        }
+        return Long.lowestOneBit(cells);
+    }
+
+
+    // Moves the value of the position towards target by gradient descent on the squared error
+    private void update(long first, long second, double target) {
+        double value = value(first, second);
+        float step = (float) (learningRate * (target - value) * (1 - value * value));
+        long playable = Bitboards.playableCells(first | second);
+        long low = first | playable;
+        long high = second | playable;
+        long mirroredLow = Bitboards.mirror(low);
+        long mirroredHigh = Bitboards.mirror(high);
+        for (int t = 0; t < tuples.length; t++) {
+            weights[t][NTupleNetwork.index(tuples[t], low, high)] += step;
+            weights[t][NTupleNetwork.index(tuples[t], mirroredLow, mirroredHigh)] += step;
+        }
+    }
+
+
+    private double value(long first, long second) {
+        return Math.tanh(sum(first, second));
+    }
+
+
+    private double sum(long first, long second) {
+        long playable = Bitboards.playableCells(first | second);
+        long low = first | playable;
+        long high = second | playable;
+        long mirroredLow = Bitboards.mirror(low);
+        long mirroredHigh = Bitboards.mirror(high);
+        double sum = 0;
+        for (int t = 0; t < tuples.length; t++) {
+            sum += weights[t][NTupleNetwork.index(tuples[t], low, high)]
+                    + weights[t][NTupleNetwork.index(tuples[t], mirroredLow, mirroredHigh)];
+        }
+        return sum;
+    }
+
+
+    // Random walks over horizontally, vertically and diagonally neighbouring cells, none visited twice
+    static int[][] createTuples(int count, int cells, SplittableRandom random) {
+        int[][] tuples = new int[count][];
+        for (int t = 0; t < count; t++) {
+            List<Integer> walk = new ArrayList<>();
+            int col = random.nextInt(Constants.COLUMNS);
+            int row = random.nextInt(Constants.ROWS);
+            walk.add(col * Bitboards.COLUMN_BITS + row);
+            while (walk.size() < cells) {
+                int nextCol = col + random.nextInt(3) - 1;
+                int nextRow = row + random.nextInt(3) - 1;
+                if (nextCol < 0 || nextCol >= Constants.COLUMNS || nextRow < 0 || nextRow >= Constants.ROWS) {
+                    continue;
+                }
+                col = nextCol;
+                row = nextRow;
+                int cell = col * Bitboards.COLUMN_BITS + row;
+                if (!walk.contains(cell)) {
+                    walk.add(cell);
+                }
+            }
+            tuples[t] = walk.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return tuples;
+    }
+}
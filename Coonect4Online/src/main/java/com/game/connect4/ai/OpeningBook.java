@@ -0,0 +1,152 @@
+package com.game.connect4.ai;
+
+import com.game.connect4.utils.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+
+// Solved opening positions, read from a file written by OpeningBookGenerator. The file is a short
+// header followed by one long per position, sorted, so lookups are a binary search straight over
+// the memory-mapped file. A position and its mirror image share one record.
+//
+// Record layout: position key (49 bits) << 14 | (score + 64) << 3 | best column
+public class OpeningBook {
+    private static final Logger log = LoggerFactory.getLogger(OpeningBook.class);
+
+    private static final int MAGIC = 0x43344B42;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    private static final int KEY_SHIFT = 14;
+    private static final int SCORE_SHIFT = 3;
+    private static final int SCORE_OFFSET = 64;
+
+    private final Path path;
+    private volatile LongBuffer records;
+    private volatile boolean unavailable;
+
+    public OpeningBook(Path path) {
+        this.path = path;
+    }
+
+
+    // Returns the record for this position with the column as seen from this side of the mirror,
+    // or 0 when the position is not in the book
+    public long probe(long position, long mask) {
+        LongBuffer book = records();
+        if (book == null) {
+            return 0;
+        }
+
+        long key = position + mask;
+        long mirroredKey = Bitboards.mirror(position) + Bitboards.mirror(mask);
+        boolean mirrored = mirroredKey < key;
+
+        long record = find(book, mirrored ? mirroredKey : key);
+        if (record == 0 || !mirrored) {
+            return record;
+        }
+        return record - column(record) + (Constants.COLUMNS - 1 - column(record));
+    }
+
+
+    public static int column(long record) {
+        return (int) record & 0x7;
+    }
+
+    public static int score(long record) {
+        return ((int) (record >>> SCORE_SHIFT) & 0x7F) - SCORE_OFFSET;
+    }
+
+    public boolean isLoaded() {
+        return records != null;
+    }
+
+
+    // Records for canonical positions (the smaller key of a position and its mirror)
+    public static long record(long key, int score, int column) {
+        return key << KEY_SHIFT | (long) (score + SCORE_OFFSET) << SCORE_SHIFT | column;
+    }
+
+    public static long canonicalKey(long position, long mask) {
+        return Math.min(position + mask, Bitboards.mirror(position) + Bitboards.mirror(mask));
+    }
+
+
+    public static void write(Path path, long[] records, int maxPly) throws IOException {
+        long[] sorted = records.clone();
+        Arrays.sort(sorted);
+
+        try (OutputStream file = Files.newOutputStream(path);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(maxPly);
+            out.writeInt(sorted.length);
+            for (long record : sorted) {
+                out.writeLong(record);
+            }
+        }
+    }
+
+
+    private static long find(LongBuffer book, long key) {
+        int low = 0;
+        int high = book.limit() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long record = book.get(middle);
+            long recordKey = record >>> KEY_SHIFT;
+            if (recordKey < key) {
+                low = middle + 1;
+            } else if (recordKey > key) {
+                high = middle - 1;
+            } else {
+                return record;
+            }
+        }
+        return 0;
+    }
+
+
+    // Maps the file on first use so startup does not pay for it; a missing or unreadable file
+    // just leaves the book empty
+    private LongBuffer records() {
+        LongBuffer book = records;
+        if (book != null || unavailable) {
+            return book;
+        }
+
+        synchronized (this) {
+            if (records == null && !unavailable) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+                    if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                        throw new IOException("not an opening book");
+                    }
+                    int maxPly = header.getInt();
+                    int count = header.getInt();
+                    records = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, (long) count * Long.BYTES)
+                            .asLongBuffer();
+                    log.info("Opening book {} loaded: {} positions up to ply {}", path, count, maxPly);
+                } catch (IOException e) {
+                    log.warn("Opening book {} not available: {}", path, e.getMessage());
+                    unavailable = true;
+                }
+            }
+            return records;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.game.connect4.ai;
+
+import com.game.connect4.utils.Constants;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+// Offline tool that solves every position up to a given ply and writes them as an opening book.
+// It runs from the executable jar through Spring Boot's PropertiesLauncher:
+//
+//   java -Dloader.main=com.game.connect4.ai.OpeningBookGenerator -cp target/connect4-<version>.jar \
+//        org.springframework.boot.loader.launch.PropertiesLauncher <book file> [max ply] [ms per position] [threads]
+//
+// Positions are solved deepest first so the shared solver table speeds up the shallower ones.
+// A position that cannot be solved within its time budget is left out, and the engine searches
+// it as usual when it comes up in a game.
+public class OpeningBookGenerator {
+    private static final int DEFAULT_MAX_PLY = 8;
+    private static final long DEFAULT_BUDGET_MS = 60_000;
+    private static final int SOLVER_TABLE_MB = 256;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: OpeningBookGenerator <book file> [max ply] [ms per position] [threads]");
+            System.exit(1);
+        }
+
+        Path path = Path.of(args[0]);
+        int maxPly = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_PLY;
+        long budgetMs = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_BUDGET_MS;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        long[] records = generate(maxPly, budgetMs, threads);
+        OpeningBook.write(path, records, maxPly);
+        System.out.printf("Wrote %d positions to %s%n", records.length, path);
+    }
+
+
+    public static long[] generate(int maxPly, long budgetMs, int threads) throws InterruptedException {
+        List<List<long[]>> positionsByPly = enumeratePositions(maxPly);
+        TranspositionTable table = new TranspositionTable(SOLVER_TABLE_MB);
+        ConcurrentLinkedQueue<Long> records = new ConcurrentLinkedQueue<>();
+
+        for (int ply = maxPly; ply >= 0; ply--) {
+            List<long[]> positions = positionsByPly.get(ply);
+            AtomicInteger next = new AtomicInteger();
+            AtomicInteger skipped = new AtomicInteger();
+            int moveCount = ply;
+
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Thread worker = new Thread(() -> {
+                    for (int i = next.getAndIncrement(); i < positions.size(); i = next.getAndIncrement()) {
+                        long position = positions.get(i)[0];
+                        long mask = positions.get(i)[1];
+                        SearchContext context = new SearchContext(budgetMs);
+                        context.armDeadline();
+                        Solver solver = new Solver(table, context);
+                        try {
+                            int score = solver.solve(position, mask, moveCount);
+                            int column = solver.findColumn(position, mask, moveCount, score);
+                            records.add(OpeningBook.record(position + mask, score, column));
+                        } catch (SearchAbortedException e) {
+                            skipped.incrementAndGet();
+                        }
+                    }
+                }, "book-" + t);
+                worker.start();
+                workers.add(worker);
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+
+            System.out.printf("Ply %d: %d positions, %d left out%n", ply, positions.size(), skipped.get());
+        }
+
+        return records.stream().mapToLong(Long::longValue).toArray();
+    }
+
+
+    // Every position reachable in up to maxPly moves where nobody has won yet, one per mirror
+    // pair (the one whose key is canonical), as {position of the side to move, mask}
+    private static List<List<long[]>> enumeratePositions(int maxPly) {
+        List<List<long[]>> positionsByPly = new ArrayList<>();
+        Map<Long, long[]> current = new HashMap<>();
+        current.put(0L, new long[]{0L, 0L});
+
+        for (int ply = 0; ply <= maxPly; ply++) {
+            positionsByPly.add(new ArrayList<>(current.values()));
+            if (ply == maxPly) {
+                break;
+            }
+
+            Map<Long, long[]> next = new HashMap<>();
+            for (long[] entry : current.values()) {
+                long position = entry[0];
+                long mask = entry[1];
+                for (int column = 0; column < Constants.COLUMNS; column++) {
+                    if (!Bitboards.canPlay(mask, column)) {
+                        continue;
+                    }
+                    long move = Bitboards.playableCells(mask) & Bitboards.columnMask(column);
+                    if (Bitboards.isWin(position | move)) {
+                        continue;
+                    }
+
+                    long childPosition = position ^ mask;
+                    long childMask = mask | move;
+                    if (OpeningBook.canonicalKey(childPosition, childMask) != childPosition + childMask) {
+                        childPosition = Bitboards.mirror(childPosition);
+                        childMask = Bitboards.mirror(childMask);
+                    }
+                    next.putIfAbsent(childPosition + childMask, new long[]{childPosition, childMask});
+                }
+            }
+            current = next;
+        }
+        return positionsByPly;
+    }
+}
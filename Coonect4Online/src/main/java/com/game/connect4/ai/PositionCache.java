@@ -0,0 +1,143 @@
+package com.game.connect4.ai;
+
+import com.game.connect4.model.Board;
+import com.game.connect4.model.SearchResult;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+
+// Finished root searches shared by every game, keyed by position and difficulty level, so a
+// position thousands of players reach is searched once per level. Where the transposition table
+// only saves part of a search that still runs its full time budget, a hit here answers the move
+// outright. Split into stripes that each hold an access-ordered map behind their own lock and
+// drop their least recently used result when full, so memory stays bounded and games rarely
+// wait on each other.
+public class PositionCache {
+
+    private static final int STRIPES = 64;
+
+    // A result with its position and column scores, the map entry and the boxed key, rounded up
+    private static final int BYTES_PER_ENTRY = 208;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final int capacity;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public PositionCache(int sizeMb) {
+        long entries = (long) sizeMb * 1024 * 1024 / BYTES_PER_ENTRY;
+        int perStripe = (int) Math.min(entries / STRIPES, Integer.MAX_VALUE);
+        this.capacity = perStripe * STRIPES;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+
+    public boolean isEnabled() {
+        return capacity > 0;
+    }
+
+
+    // The stored result for this position at this level, or null
+    public SearchResult get(Board board, int difficultyLevel) {
+        if (!isEnabled()) {
+            return null;
+        }
+        long key = key(board.getHash(), difficultyLevel);
+        Stripe stripe = stripe(key);
+        SearchResult result;
+        synchronized (stripe) {
+            result = stripe.get(key);
+        }
+        // Two positions may share a key; the result holds its own discs and checks them
+        if (result != null && result.matches(board, difficultyLevel)) {
+            hits.increment();
+            return result;
+        }
+        misses.increment();
+        return null;
+    }
+
+
+    public void put(SearchResult result) {
+        if (!isEnabled()) {
+            return;
+        }
+        long key = key(result.getPositionHash(), result.getDifficultyLevel());
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            stripe.put(key, result);
+        }
+    }
+
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+
+    private static long key(long positionHash, int difficultyLevel) {
+        return positionHash ^ difficultyLevel * 0x9E3779B97F4A7C15L;
+    }
+
+
+    private Stripe stripe(long key) {
+        // The high bits, since the low ones already pick transposition table slots
+        return stripes[(int) (key >>> 58)];
+    }
+
+
+    private class Stripe extends LinkedHashMap<Long, SearchResult> {
+        private final int maxEntries;
+
+        Stripe(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, SearchResult> eldest) {
+            if (size() > maxEntries) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.game.connect4.ai;
+
+
+// Thrown from deep inside the search when the time budget runs out. A single shared instance
+// without a stack trace keeps the unwind cheap.
+public class SearchAbortedException extends RuntimeException {
+    public static final SearchAbortedException INSTANCE = new SearchAbortedException();
+
+    private SearchAbortedException() {
+        super("Search time budget exhausted", null, false, false);
+    }
+}
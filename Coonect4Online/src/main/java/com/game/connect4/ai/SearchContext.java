@@ -0,0 +1,158 @@
+package com.game.connect4.ai;
+
+import com.game.connect4.model.Player;
+import com.game.connect4.utils.Constants;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+// Per-search state shared by every node of one findBestMove call
+public class SearchContext {
+    // How often (in nodes) the clock is read
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    private static final int MAX_PLY = Constants.ROWS * Constants.COLUMNS + 1;
+
+    private final long deadlineNanos;
+    private final AtomicBoolean cancelled;
+    private final AtomicInteger sharedAlpha;
+    private final Player rootPlayer;
+    private final MoveOrderer moveOrderer;
+    private final int[][] moveBuffers = new int[MAX_PLY][Constants.COLUMNS];
+    private long nodes;
+    private long cutoffs;
+    private long firstMoveCutoffs;
+    private long leafEvaluations;
+    private long tableProbes;
+    private long tableHits;
+    private long lastIterationNodes;
+    private long previousIterationNodes;
+    private volatile boolean deadlineArmed;
+
+    public SearchContext(long budgetMillis) {
+        this(budgetMillis, new AtomicBoolean());
+    }
+
+    // The search also stops, even in its first iteration, as soon as cancelled is set
+    public SearchContext(long budgetMillis, AtomicBoolean cancelled) {
+        this(System.nanoTime() + budgetMillis * 1_000_000L, cancelled, new HeuristicMoveOrderer());
+    }
+
+    private SearchContext(long deadlineNanos, AtomicBoolean cancelled, MoveOrderer moveOrderer) {
+        this.deadlineNanos = deadlineNanos;
+        this.cancelled = cancelled;
+        this.sharedAlpha = null;
+        this.rootPlayer = Player.NONE;
+        this.moveOrderer = moveOrderer;
+    }
+
+    private SearchContext(SearchContext parent, AtomicInteger sharedAlpha, Player rootPlayer) {
+        this.deadlineNanos = parent.deadlineNanos;
+        this.cancelled = parent.cancelled;
+        this.deadlineArmed = parent.deadlineArmed;
+        this.sharedAlpha = sharedAlpha;
+        this.rootPlayer = rootPlayer;
+        this.moveOrderer = new HeuristicMoveOrderer();
+    }
+
+
+    // For searches that must run to their full depth
+    public static SearchContext withoutDeadline() {
+        return new SearchContext(Long.MAX_VALUE, new AtomicBoolean(), new HeuristicMoveOrderer());
+    }
+
+
+    // Context for one parallel worker: same deadline, own counters and move ordering, and a
+    // root alpha (from rootPlayer's point of view) that every worker raises as it finishes a column
+    public SearchContext forWorker(AtomicInteger sharedAlpha, Player rootPlayer) {
+        return new SearchContext(this, sharedAlpha, rootPlayer);
+    }
+
+
+    // Integer.MIN_VALUE when this is not a parallel worker
+    public int getSharedAlpha() {
+        return sharedAlpha == null ? Integer.MIN_VALUE : sharedAlpha.get();
+    }
+
+    public Player getRootPlayer() {
+        return rootPlayer;
+    }
+
+
+    // Called once per node; aborts the search when the deadline has passed or it was cancelled
+    public void visitNode() {
+        nodes++;
+        if ((nodes & (TIME_CHECK_INTERVAL - 1)) == 0
+                && (cancelled.get() || deadlineArmed && System.nanoTime() > deadlineNanos)) {
+            throw SearchAbortedException.INSTANCE;
+        }
+    }
+
+
+    public void recordCutoff(boolean firstMove) {
+        cutoffs++;
+        if (firstMove) {
+            firstMoveCutoffs++;
+        }
+    }
+
+
+    public void recordLeaf() {
+        leafEvaluations++;
+    }
+
+
+    public void recordProbe(boolean hit) {
+        tableProbes++;
+        if (hit) {
+            tableHits++;
+        }
+    }
+
+
+    // Folds a finished worker's counters into this context
+    public synchronized void merge(SearchContext worker) {
+        nodes += worker.nodes;
+        cutoffs += worker.cutoffs;
+        firstMoveCutoffs += worker.firstMoveCutoffs;
+        leafEvaluations += worker.leafEvaluations;
+        tableProbes += worker.tableProbes;
+        tableHits += worker.tableHits;
+    }
+
+
+    // Marks the end of a completed iteration for the branching factor estimate
+    public void completeIteration(long nodesBefore) {
+        previousIterationNodes = lastIterationNodes;
+        lastIterationNodes = nodes - nodesBefore;
+    }
+
+
+    // The first iteration always completes so there is a move to fall back on
+    public void armDeadline() {
+        deadlineArmed = true;
+    }
+
+    public boolean isTimeUp() {
+        return System.nanoTime() > deadlineNanos;
+    }
+
+    public MoveOrderer getMoveOrderer() {
+        return moveOrderer;
+    }
+
+    // Scratch array for the columns of the node at this ply, so nodes do not allocate lists
+    public int[] getMoveBuffer(int ply) {
+        return moveBuffers[ply];
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public SearchStatistics getStatistics() {
+        return new SearchStatistics(1, nodes, cutoffs, firstMoveCutoffs, leafEvaluations, tableProbes, tableHits,
+                lastIterationNodes, previousIterationNodes);
+    }
+}
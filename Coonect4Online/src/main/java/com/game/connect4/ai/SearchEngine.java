@@ -0,0 +1,18 @@
+package com.game.connect4.ai;
+
+import com.game.connect4.model.Board;
+import com.game.connect4.model.Player;
+import com.game.connect4.model.SearchResult;
+
+
+// A move search AIService can hand a difficulty level to instead of its own minimax search.
+// The engine runs within the budget of the context it is given and scores the columns from the
+// point of view of player, the side to move.
+public interface SearchEngine {
+
+    // gameId lets an engine carry work over from one move of a game to the next; parallel is false
+    // for background searches, which must stay on the calling thread and must not replace what a
+    // game's own move searches carry over
+    SearchResult search(Board board, int difficultyLevel, Player player, String gameId, boolean parallel,
+                        SearchContext context);
+}
@@ -0,0 +1,89 @@
+package com.game.connect4.ai;
+
+
+// Node, cutoff and transposition table counters for one or more searches. The effective branching
+// factor is the ratio of nodes in the deepest completed iteration to nodes in the iteration before it.
+public class SearchStatistics {
+    private final long searches;
+    private final long nodes;
+    private final long cutoffs;
+    private final long firstMoveCutoffs;
+    private final long leafEvaluations;
+    private final long tableProbes;
+    private final long tableHits;
+    private final long lastIterationNodes;
+    private final long previousIterationNodes;
+
+    public SearchStatistics(long searches, long nodes, long cutoffs, long firstMoveCutoffs, long leafEvaluations,
+                            long tableProbes, long tableHits, long lastIterationNodes, long previousIterationNodes) {
+        this.searches = searches;
+        this.nodes = nodes;
+        this.cutoffs = cutoffs;
+        this.firstMoveCutoffs = firstMoveCutoffs;
+        this.leafEvaluations = leafEvaluations;
+        this.tableProbes = tableProbes;
+        this.tableHits = tableHits;
+        this.lastIterationNodes = lastIterationNodes;
+        this.previousIterationNodes = previousIterationNodes;
+    }
+
+    public long getSearches() {
+        return searches;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    public long getLeafEvaluations() {
+        return leafEvaluations;
+    }
+
+    public long getTableProbes() {
+        return tableProbes;
+    }
+
+    public long getTableHits() {
+        return tableHits;
+    }
+
+    public long getLastIterationNodes() {
+        return lastIterationNodes;
+    }
+
+    public long getPreviousIterationNodes() {
+        return previousIterationNodes;
+    }
+
+    // Share of nodes that ended in a beta cutoff
+    public double getCutoffRate() {
+        return nodes == 0 ? 0.0 : (double) cutoffs / nodes;
+    }
+
+    public double getTableHitRate() {
+        return tableProbes == 0 ? 0.0 : (double) tableHits / tableProbes;
+    }
+
+    public double getFirstMoveCutoffRate() {
+        return cutoffs == 0 ? 0.0 : (double) firstMoveCutoffs / cutoffs;
+    }
+
+    public double getEffectiveBranchingFactor() {
+        return previousIterationNodes == 0 ? 0.0 : (double) lastIterationNodes / previousIterationNodes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("nodes=%d, leaves=%d, cutoffs=%d, firstMoveCutoffRate=%.3f, tableHitRate=%.3f, ebf=%.2f",
+                nodes, leafEvaluations, cutoffs, getFirstMoveCutoffRate(), getTableHitRate(),
+                getEffectiveBranchingFactor());
+    }
+}
@@ -0,0 +1,194 @@
+package com.game.connect4.ai;
+
+import com.game.connect4.utils.Constants;
+
+
+// Exact solver for the Unbeatable level. Scores are from the side to move's point of view:
+// 0 for a draw, positive for a win (higher the sooner it comes) and negative for a loss.
+// A win with the side's own nth disc scores 22 - n, as does a loss to the opponent's nth disc.
+//
+// Searches the weak-to-strong sequence of null windows, never tries moves that hand the
+// opponent an immediate win, and shares a table of proven bounds across solves. Runs under
+// the deadline of its SearchContext and throws SearchAbortedException when it expires.
+public class Solver {
+    private static final int SIZE = Constants.ROWS * Constants.COLUMNS;
+
+    public static final int[] COLUMN_ORDER = {3, 2, 4, 1, 5, 0, 6};
+
+    private final TranspositionTable table;
+    private final SearchContext context;
+    private final long[][] moveBuffers = new long[SIZE + 1][Constants.COLUMNS];
+    private final int[][] scoreBuffers = new int[SIZE + 1][Constants.COLUMNS];
+
+    public Solver(TranspositionTable table, SearchContext context) {
+        this.table = table;
+        this.context = context;
+    }
+
+
+    // position holds the discs of the side to move, mask the discs of both sides
+    public int solve(long position, long mask, int moveCount) {
+        if (Tactics.canWinNext(position, mask)) {
+            return (SIZE + 1 - moveCount) / 2;
+        }
+
+        int min = -(SIZE - moveCount) / 2;
+        int max = (SIZE + 1 - moveCount) / 2;
+
+        // Narrow [min, max] with null-window searches, probing near zero first because
+        // proving a draw or a short result is much cheaper than bisecting blindly
+        while (min < max) {
+            int median = min + (max - min) / 2;
+            if (median <= 0 && min / 2 < median) {
+                median = min / 2;
+            } else if (median >= 0 && max / 2 > median) {
+                median = max / 2;
+            }
+
+            int result = negamax(position, mask, moveCount, median, median + 1);
+            if (result <= median) {
+                max = result;
+            } else {
+                min = result;
+            }
+        }
+        return min;
+    }
+
+
+    // First column in center-first order that reaches score, the solved value of the position
+    public int findColumn(long position, long mask, int moveCount, int score) {
+        long winning = Bitboards.winningCells(position, mask);
+
+        for (int column : COLUMN_ORDER) {
+            if (!Bitboards.canPlay(mask, column)) {
+                continue;
+            }
+
+            long move = Bitboards.playableCells(mask) & Bitboards.columnMask(column);
+            if ((winning & move) != 0) {
+                return column;
+            }
+
+            long childPosition = position ^ mask;
+            long childMask = mask | move;
+            int childScore = Tactics.canWinNext(childPosition, childMask)
+                    ? (SIZE - moveCount) / 2
+                    : negamax(childPosition, childMask, moveCount + 1, -score, -score + 1);
+            if (-childScore >= score) {
+                return column;
+            }
+        }
+
+        throw new IllegalStateException("No column reaches the solved score " + score);
+    }
+
+
+    // Moves played (both sides) from the position until the game ends with this score
+    public static int pliesToEnd(int score, int moveCount) {
+        int ownDiscs = moveCount / 2;
+        if (score > 0) {
+            return 2 * ((SIZE + 2) / 2 - score - ownDiscs) - 1;
+        } else if (score < 0) {
+            return 2 * ((SIZE + 2) / 2 + score - (moveCount - ownDiscs));
+        }
+        return SIZE - moveCount;
+    }
+
+
+    // Fail-hard alpha-beta. The side to move must not be able to win immediately.
+    private int negamax(long position, long mask, int moveCount, int alpha, int beta) {
+        context.visitNode();
+
+        long next = Tactics.nonLosingMoves(position, mask);
+        if (next == 0) {
+            return -(SIZE - moveCount) / 2;
+        }
+        if (moveCount >= SIZE - 2) {
+            return 0;
+        }
+
+        // Neither side can win before its next disc, which bounds the score on both ends
+        int min = -(SIZE - 2 - moveCount) / 2;
+        if (alpha < min) {
+            alpha = min;
+            if (alpha >= beta) {
+                return alpha;
+            }
+        }
+        int max = (SIZE - 1 - moveCount) / 2;
+        if (beta > max) {
+            beta = max;
+            if (alpha >= beta) {
+                return beta;
+            }
+        }
+
+        long hash = hash(position, mask);
+        long entry = table.probe(hash);
+        context.recordProbe(entry != 0);
+        if (entry != 0) {
+            int bound = TranspositionTable.bound(entry);
+            int value = TranspositionTable.score(entry);
+            if (bound == TranspositionTable.UPPER_BOUND) {
+                if (beta > value) {
+                    beta = value;
+                    if (alpha >= beta) {
+                        return beta;
+                    }
+                }
+            } else if (alpha < value) {
+                alpha = value;
+                if (alpha >= beta) {
+                    return alpha;
+                }
+            }
+        }
+
+        long[] moves = moveBuffers[moveCount];
+        int count = orderMoves(position, mask, next, moves, scoreBuffers[moveCount]);
+
+        for (int i = 0; i < count; i++) {
+            int score = -negamax(position ^ mask, mask | moves[i], moveCount + 1, -beta, -alpha);
+            if (score >= beta) {
+                table.store(hash, SIZE - moveCount, TranspositionTable.LOWER_BOUND, score, TranspositionTable.NO_MOVE);
+                return score;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+        }
+
+        table.store(hash, SIZE - moveCount, TranspositionTable.UPPER_BOUND, alpha, TranspositionTable.NO_MOVE);
+        return alpha;
+    }
+
+
+    // Moves that create the most new threats first, center-first among equals
+    private static int orderMoves(long position, long mask, long candidates, long[] moves, int[] scores) {
+        int count = 0;
+        for (int column : COLUMN_ORDER) {
+            long move = candidates & Bitboards.columnMask(column);
+            if (move == 0) {
+                continue;
+            }
+
+            int score = Long.bitCount(Bitboards.winningCells(position | move, mask));
+            int i = count++;
+            while (i > 0 && scores[i - 1] < score) {
+                moves[i] = moves[i - 1];
+                scores[i] = scores[i - 1];
+                i--;
+            }
+            moves[i] = move;
+            scores[i] = score;
+        }
+        return count;
+    }
+
+
+    // position + mask is unique per position; multiply to spread it over the table slots
+    private static long hash(long position, long mask) {
+        return (position + mask) * 0x9E3779B97F4A7C15L;
+    }
+}
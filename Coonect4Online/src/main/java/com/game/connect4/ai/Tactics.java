@@ -0,0 +1,78 @@
+package com.game.connect4.ai;
+
+
+// Threats that decide a position without a search. "position" is the discs of the side to move
+// and "mask" the discs of both, as in Bitboards; moves are returned as the cells they fill.
+public final class Tactics {
+
+    private Tactics() {
+    }
+
+
+    // Playable cells that win on the spot
+    public static long winningMoves(long position, long mask) {
+        return Bitboards.winningCells(position, mask) & Bitboards.playableCells(mask);
+    }
+
+
+    public static boolean canWinNext(long position, long mask) {
+        return winningMoves(position, mask) != 0;
+    }
+
+
+    // Playable cells that do not lose on the spot: a forced block if the opponent threatens
+    // one cell, nothing if it threatens two, and never the cell under an opponent threat
+    public static long nonLosingMoves(long position, long mask) {
+        long possible = Bitboards.playableCells(mask);
+        long opponentWins = Bitboards.winningCells(position ^ mask, mask);
+        long forced = possible & opponentWins;
+        if (forced != 0) {
+            if ((forced & (forced - 1)) != 0) {
+                return 0;
+            }
+            possible = forced;
+        }
+        return possible & ~(opponentWins >>> 1);
+    }
+
+
+    // Of the given moves, which should not lose on the spot, those that leave two threats the
+    // opponent cannot both stop: two playable winning cells, or one with another right above it.
+    // With no immediate win of its own, the opponent can only block one, so these win two plies on.
+    public static long doubleThreatMoves(long position, long mask, long candidates) {
+        long result = 0;
+        for (long moves = candidates; moves != 0; moves &= moves - 1) {
+            long move = Long.lowestOneBit(moves);
+            long childMask = mask | move;
+            long wins = Bitboards.winningCells(position | move, childMask);
+            long threats = wins & Bitboards.playableCells(childMask);
+            if ((threats & (threats - 1)) != 0 || (threats & (wins >>> 1)) != 0) {
+                result |= move;
+            }
+        }
+        return result;
+    }
+
+
+    // The first of the cells' columns in center-first order, or -1 when there are no cells
+    public static int firstColumn(long cells) {
+        for (int column : Solver.COLUMN_ORDER) {
+            if ((cells & Bitboards.columnMask(column)) != 0) {
+                return column;
+            }
+        }
+        return -1;
+    }
+
+
+    // Keeps the columns whose playable cell is among cells, in their order; returns how many are left
+    public static int retainColumns(int[] columns, int count, long cells) {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if ((cells & Bitboards.columnMask(columns[i])) != 0) {
+                columns[kept++] = columns[i];
+            }
+        }
+        return kept;
+    }
+}
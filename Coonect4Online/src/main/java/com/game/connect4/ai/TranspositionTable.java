@@ -0,0 +1,107 @@
+package com.game.connect4.ai;
+
+import java.util.Arrays;
+
+
+// Fixed-size table keyed by Board.getHash(). All slots are preallocated, so memory does not grow
+// with the number of games searching at once. Each slot stores the packed entry and the hash
+// XOR-ed with it, so concurrent searches can share it without locks (a torn write just fails
+// the key check on the next probe).
+//
+// Slots come in pairs: the first keeps the deepest result that hashed there, the second always
+// takes the latest one. Games search concurrently and share the table, so there is no search
+// counter to age entries by; the always-replace slot is what lets new results in once deep old
+// ones fill the first slots.
+public class TranspositionTable {
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+
+    public static final int NO_MOVE = -1;
+
+    private static final int BYTES_PER_ENTRY = 16;
+
+    // Packed entry layout: score (32 bits) | depth (8) | bound (2) | move + 1 (4)
+    private static final int DEPTH_SHIFT = 32;
+    private static final int BOUND_SHIFT = 40;
+    private static final int MOVE_SHIFT = 42;
+
+    private final long[] keys;
+    private final long[] entries;
+    private final int mask;
+
+    public TranspositionTable(int sizeMb) {
+        long budgetEntries = Math.max(2L, (long) sizeMb * 1024 * 1024 / BYTES_PER_ENTRY);
+
+        // Round down to a power of two so the slot index is a simple mask
+        int size = Integer.highestOneBit((int) Math.min(budgetEntries, 1 << 30));
+        keys = new long[size];
+        entries = new long[size];
+        // Clearing the low bit points at the first slot of the pair
+        mask = (size - 1) & ~1;
+    }
+
+
+    // Returns the packed entry for this hash, or 0 when there is none
+    public long probe(long hash) {
+        int index = (int) hash & mask;
+        long entry = entries[index];
+        if (entry != 0 && (keys[index] ^ entry) == hash) {
+            return entry;
+        }
+        entry = entries[index + 1];
+        if (entry != 0 && (keys[index + 1] ^ entry) == hash) {
+            return entry;
+        }
+        return 0;
+    }
+
+
+    public void store(long hash, int depth, int bound, int score, int move) {
+        int index = (int) hash & mask;
+        long existing = entries[index];
+
+        // Depth-preferred slot: taken when free, by the same position, or by a search at least as deep
+        if (existing != 0 && (keys[index] ^ existing) != hash && depth(existing) > depth) {
+            index++;
+        }
+
+        long entry = (score & 0xFFFFFFFFL)
+                | ((long) (depth & 0xFF) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) (move + 1) << MOVE_SHIFT);
+        entries[index] = entry;
+        keys[index] = hash ^ entry;
+    }
+
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(entries, 0L);
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    public long sizeInBytes() {
+        return (long) entries.length * BYTES_PER_ENTRY;
+    }
+
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & 0x3;
+    }
+
+    public static int move(long entry) {
+        return ((int) (entry >>> MOVE_SHIFT) & 0xF) - 1;
+    }
+
+}
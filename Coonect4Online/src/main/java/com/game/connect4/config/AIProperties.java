@@ -0,0 +1,348 @@
+package com.game.connect4.config;
+
+import com.game.connect4.utils.Constants;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+
+@ConfigurationProperties(prefix = "connect4.ai")
+public class AIProperties {
+
+    // Memory budget for the shared transposition table, in megabytes
+    private int transpositionTableMb = 16;
+
+    // Finished move searches shared by every game, so a position many players reach is searched
+    // once per level; in megabytes, 0 turns it off
+    private int positionCacheMb = 16;
+
+    // Leaf evaluation of the minimax search: "heuristic" for the hand-written window scores, or
+    // "ntuple" for the self-play trained NTupleNetwork, read from ntupleWeights (empty: the bundled
+    // weights)
+    private String evaluator = "heuristic";
+    private String ntupleWeights = "";
+
+    // Wall-clock budget per AI move, in milliseconds
+    private final TimeBudget timeBudgetMs = new TimeBudget();
+
+    // Worker threads for the parallel Expert search; 1 keeps every search single-threaded
+    private int searchThreads = Runtime.getRuntime().availableProcessors();
+
+    // Table of proven bounds for the Unbeatable solver, in megabytes
+    private int solverTableMb = 32;
+
+    // Time the Unbeatable solver gets before the move falls back to the Expert search
+    private long solverTimeBudgetMs = 2000;
+
+    // Opening book written by OpeningBookGenerator; empty to play without one
+    private String openingBook = "";
+
+    // The Monte Carlo level stops at this many playouts per move if its time budget lasts that
+    // long, and keeps the search trees of this many games for their next move, as long as they
+    // hold no more than monteCarloTreeNodes nodes together (about 50 bytes each)
+    private int monteCarloPlayouts = 50000;
+    private int monteCarloTrees = 32;
+    private long monteCarloTreeNodes = 1_000_000;
+
+    // Low-priority threads that search likely player replies while the player thinks, shared by
+    // all games; 0 turns pondering off
+    private int ponderThreads = 0;
+
+    // Pondering for a game stops once the player has not moved for this long
+    private long ponderIdleMs = 30000;
+
+    // Threads that play move requests off the servlet threads, and how many requests may wait
+    // for one before new ones are turned away with 503
+    private int moveThreads = Runtime.getRuntime().availableProcessors();
+    private int moveQueueCapacity = 32;
+
+    // Longest a move request may take, queueing included; the AI plays its best move so far
+    private long moveTimeoutMs = 5000;
+
+    // Hint streams run on their own low-priority threads, shared by all games, and deepen for at
+    // most hintTimeMs; a hint asked for while every thread is busy is turned away
+    private int hintThreads = 1;
+    private long hintTimeMs = 3000;
+
+    // Post-game reviews search every position to reviewDepth on reviewThreads threads of their own,
+    // keep the reviews of the last reviewCacheSize games and the searched positions in a cache of
+    // reviewPositionCacheMb, apart from the moves'. The analysis page waits at most reviewWaitMs
+    // for a review still running.
+    private int reviewDepth = 10;
+    private int reviewThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+    private int reviewCacheSize = 256;
+    private int reviewPositionCacheMb = 4;
+    private long reviewWaitMs = 2000;
+
+    // Shrink search budgets while moves queue up or wait for a thread, down to minBudgetScale of
+    // the usual budget, aiming to keep the p99 of that wait under targetQueueWaitMs
+    private boolean adaptiveBudget = true;
+    private long targetQueueWaitMs = 500;
+    private double minBudgetScale = 0.1;
+
+    public int getTranspositionTableMb() {
+        return transpositionTableMb;
+    }
+
+    public void setTranspositionTableMb(int transpositionTableMb) {
+        this.transpositionTableMb = transpositionTableMb;
+    }
+
+    public String getEvaluator() {
+        return evaluator;
+    }
+
+    public void setEvaluator(String evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    public String getNtupleWeights() {
+        return ntupleWeights;
+    }
+
+    public void setNtupleWeights(String ntupleWeights) {
+        this.ntupleWeights = ntupleWeights;
+    }
+
+    public int getPositionCacheMb() {
+        return positionCacheMb;
+    }
+
+    public void setPositionCacheMb(int positionCacheMb) {
+        this.positionCacheMb = positionCacheMb;
+    }
+
+    public int getMonteCarloPlayouts() {
+        return monteCarloPlayouts;
+    }
+
+    public void setMonteCarloPlayouts(int monteCarloPlayouts) {
+        this.monteCarloPlayouts = monteCarloPlayouts;
+    }
+
+    public int getMonteCarloTrees() {
+        return monteCarloTrees;
+    }
+
+    public void setMonteCarloTrees(int monteCarloTrees) {
+        this.monteCarloTrees = monteCarloTrees;
+    }
+
+    public long getMonteCarloTreeNodes() {
+        return monteCarloTreeNodes;
+    }
+
+    public void setMonteCarloTreeNodes(long monteCarloTreeNodes) {
+        this.monteCarloTreeNodes = monteCarloTreeNodes;
+    }
+
+    public int getSearchThreads() {
+        return searchThreads;
+    }
+
+    public void setSearchThreads(int searchThreads) {
+        this.searchThreads = searchThreads;
+    }
+
+    public int getSolverTableMb() {
+        return solverTableMb;
+    }
+
+    public void setSolverTableMb(int solverTableMb) {
+        this.solverTableMb = solverTableMb;
+    }
+
+    public long getSolverTimeBudgetMs() {
+        return solverTimeBudgetMs;
+    }
+
+    public void setSolverTimeBudgetMs(long solverTimeBudgetMs) {
+        this.solverTimeBudgetMs = solverTimeBudgetMs;
+    }
+
+    public String getOpeningBook() {
+        return openingBook;
+    }
+
+    public void setOpeningBook(String openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    public int getPonderThreads() {
+        return ponderThreads;
+    }
+
+    public void setPonderThreads(int ponderThreads) {
+        this.ponderThreads = ponderThreads;
+    }
+
+    public long getPonderIdleMs() {
+        return ponderIdleMs;
+    }
+
+    public void setPonderIdleMs(long ponderIdleMs) {
+        this.ponderIdleMs = ponderIdleMs;
+    }
+
+    public int getMoveThreads() {
+        return moveThreads;
+    }
+
+    public void setMoveThreads(int moveThreads) {
+        this.moveThreads = moveThreads;
+    }
+
+    public int getMoveQueueCapacity() {
+        return moveQueueCapacity;
+    }
+
+    public void setMoveQueueCapacity(int moveQueueCapacity) {
+        this.moveQueueCapacity = moveQueueCapacity;
+    }
+
+    public long getMoveTimeoutMs() {
+        return moveTimeoutMs;
+    }
+
+    public void setMoveTimeoutMs(long moveTimeoutMs) {
+        this.moveTimeoutMs = moveTimeoutMs;
+    }
+
+    public int getHintThreads() {
+        return hintThreads;
+    }
+
+    public void setHintThreads(int hintThreads) {
+        this.hintThreads = hintThreads;
+    }
+
+    public long getHintTimeMs() {
+        return hintTimeMs;
+    }
+
+    public void setHintTimeMs(long hintTimeMs) {
+        this.hintTimeMs = hintTimeMs;
+    }
+
+    public int getReviewDepth() {
+        return reviewDepth;
+    }
+
+    public void setReviewDepth(int reviewDepth) {
+        this.reviewDepth = reviewDepth;
+    }
+
+    public int getReviewThreads() {
+        return reviewThreads;
+    }
+
+    public void setReviewThreads(int reviewThreads) {
+        this.reviewThreads = reviewThreads;
+    }
+
+    public int getReviewCacheSize() {
+        return reviewCacheSize;
+    }
+
+    public void setReviewCacheSize(int reviewCacheSize) {
+        this.reviewCacheSize = reviewCacheSize;
+    }
+
+    public int getReviewPositionCacheMb() {
+        return reviewPositionCacheMb;
+    }
+
+    public void setReviewPositionCacheMb(int reviewPositionCacheMb) {
+        this.reviewPositionCacheMb = reviewPositionCacheMb;
+    }
+
+    public long getReviewWaitMs() {
+        return reviewWaitMs;
+    }
+
+    public void setReviewWaitMs(long reviewWaitMs) {
+        this.reviewWaitMs = reviewWaitMs;
+    }
+
+    public boolean isAdaptiveBudget() {
+        return adaptiveBudget;
+    }
+
+    public void setAdaptiveBudget(boolean adaptiveBudget) {
+        this.adaptiveBudget = adaptiveBudget;
+    }
+
+    public long getTargetQueueWaitMs() {
+        return targetQueueWaitMs;
+    }
+
+    public void setTargetQueueWaitMs(long targetQueueWaitMs) {
+        this.targetQueueWaitMs = targetQueueWaitMs;
+    }
+
+    public double getMinBudgetScale() {
+        return minBudgetScale;
+    }
+
+    public void setMinBudgetScale(double minBudgetScale) {
+        this.minBudgetScale = minBudgetScale;
+    }
+
+    public TimeBudget getTimeBudgetMs() {
+        return timeBudgetMs;
+    }
+
+
+    // Uses the same level boundaries as the difficulty names shown to the player; Unbeatable
+    // falls back to the Expert budget when the solver runs out of time, and Monte Carlo gets the
+    // Expert budget too
+    public long getTimeBudgetMs(int difficultyLevel) {
+        if (difficultyLevel <= Constants.EASY) {
+            return timeBudgetMs.getEasy();
+        } else if (difficultyLevel <= Constants.MEDIUM) {
+            return timeBudgetMs.getMedium();
+        } else if (difficultyLevel <= Constants.HARD) {
+            return timeBudgetMs.getHard();
+        } else {
+            return timeBudgetMs.getExpert();
+        }
+    }
+
+
+    public static class TimeBudget {
+        private long easy = 100;
+        private long medium = 250;
+        private long hard = 500;
+        private long expert = 1000;
+
+        public long getEasy() {
+            return easy;
+        }
+
+        public void setEasy(long easy) {
+            this.easy = easy;
+        }
+
+        public long getMedium() {
+            return medium;
+        }
+
+        public void setMedium(long medium) {
+            this.medium = medium;
+        }
+
+        public long getHard() {
+            return hard;
+        }
+
+        public void setHard(long hard) {
+            this.hard = hard;
+        }
+
+        public long getExpert() {
+            return expert;
+        }
+
+        public void setExpert(long expert) {
+            this.expert = expert;
+        }
+    }
+}
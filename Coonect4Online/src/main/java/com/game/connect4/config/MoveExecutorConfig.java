@@ -0,0 +1,25 @@
+package com.game.connect4.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+@Configuration
+public class MoveExecutorConfig {
+
+    // Bounded on both threads and queue; a full queue rejects at once instead of letting
+    // requests pile up behind long Expert searches
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor moveExecutor(AIProperties properties) {
+        int threads = properties.getMoveThreads();
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getMoveQueueCapacity()),
+                runnable -> new Thread(runnable, "move-" + threadNumber.incrementAndGet()));
+    }
+}
@@ -0,0 +1,85 @@
+package com.game.connect4.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+
+@ConfigurationProperties(prefix = "connect4.sessions")
+public class SessionProperties {
+
+    // Games nobody has touched for this long are dropped
+    private long idleTimeoutMs = 2 * 60 * 60 * 1000L;
+
+    // Above this many games the least recently used ones are dropped
+    private int maxSessions = 10000;
+
+    // "memory", or "file" to keep games in a journal that survives restarts
+    private String store = "memory";
+
+    // Journal directory for the file store
+    private String journalDir = "data/journal";
+
+    // How often changed games are written to the journal; a crash loses at most this much play
+    private long journalFlushMs = 200;
+
+    // Size at which the journal moves on to a new segment
+    private long journalSegmentBytes = 4 * 1024 * 1024L;
+
+    // Above this many segments the journal is compacted down to one snapshot of the live games
+    private int journalMaxSegments = 4;
+
+    public long getIdleTimeoutMs() {
+        return idleTimeoutMs;
+    }
+
+    public void setIdleTimeoutMs(long idleTimeoutMs) {
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    public void setMaxSessions(int maxSessions) {
+        this.maxSessions = maxSessions;
+    }
+
+    public String getStore() {
+        return store;
+    }
+
+    public void setStore(String store) {
+        this.store = store;
+    }
+
+    public String getJournalDir() {
+        return journalDir;
+    }
+
+    public void setJournalDir(String journalDir) {
+        this.journalDir = journalDir;
+    }
+
+    public long getJournalFlushMs() {
+        return journalFlushMs;
+    }
+
+    public void setJournalFlushMs(long journalFlushMs) {
+        this.journalFlushMs = journalFlushMs;
+    }
+
+    public long getJournalSegmentBytes() {
+        return journalSegmentBytes;
+    }
+
+    public void setJournalSegmentBytes(long journalSegmentBytes) {
+        this.journalSegmentBytes = journalSegmentBytes;
+    }
+
+    public int getJournalMaxSegments() {
+        return journalMaxSegments;
+    }
+
+    public void setJournalMaxSegments(int journalMaxSegments) {
+        this.journalMaxSegments = journalMaxSegments;
+    }
+}
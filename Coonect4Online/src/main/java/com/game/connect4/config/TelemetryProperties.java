@@ -0,0 +1,30 @@
+package com.game.connect4.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+
+@ConfigurationProperties(prefix = "connect4.telemetry")
+public class TelemetryProperties {
+
+    // Off, searches still count their nodes but nothing is kept or exported
+    private boolean enabled = true;
+
+    // Most recent searches kept for the telemetry endpoints
+    private int historySize = 1000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    public void setHistorySize(int historySize) {
+        this.historySize = historySize;
+    }
+}
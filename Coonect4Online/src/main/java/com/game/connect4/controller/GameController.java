@@ -1,23 +1,63 @@
 package com.game.connect4.controller;
 
+import com.game.connect4.config.AIProperties;
 import com.game.connect4.model.Game;
+import com.game.connect4.model.GameReview;
 import com.game.connect4.model.GameStatus;
 import com.game.connect4.model.Move;
+import com.game.connect4.service.GameReviewService;
 import com.game.connect4.service.GameService;
+import com.game.connect4.service.HintService;
+import com.game.connect4.service.SearchBudgetScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 @Controller
 public class GameController {
 
+    private static final Logger log = LoggerFactory.getLogger(GameController.class);
+
+    // States of a queued move: the executor starts it, or the request times out first and it is
+    // dropped, whichever claims it first
+    private static final int QUEUED = 0;
+    private static final int STARTED = 1;
+    private static final int ABANDONED = 2;
+
     private final GameService gameService;
+    private final ThreadPoolExecutor moveExecutor;
+    private final AIProperties properties;
+    private final SearchBudgetScheduler budgetScheduler;
+    private final HintService hintService;
+    private final GameReviewService reviewService;
 
     @Autowired
-    public GameController(GameService gameService) {
+    public GameController(GameService gameService, ThreadPoolExecutor moveExecutor, AIProperties properties,
+                          SearchBudgetScheduler budgetScheduler, HintService hintService,
+                          GameReviewService reviewService) {
         this.gameService = gameService;
+        this.moveExecutor = moveExecutor;
+        this.properties = properties;
+        this.budgetScheduler = budgetScheduler;
+        this.hintService = hintService;
+        this.reviewService = reviewService;
     }
 
 
@@ -35,9 +75,16 @@ public class GameController {
     }
 
 
+    // The page renders a copy taken under the game's lock, so a move or reset landing meanwhile
+    // cannot change the board or history halfway through the template
     @GetMapping("/game/{gameId}")
     public String showGame(@PathVariable String gameId, Model model) {
-        Game game = gameService.getGame(gameId);
+        Game game = gameService.withGame(gameId, locked -> {
+            if (locked.getStatus() != GameStatus.IN_PROGRESS) {
+                model.addAttribute("gameSummary", gameService.getGameSummary(gameId));
+            }
+            return new Game(locked);
+        });
         if (game == null) {
             return "redirect:/";
         }
@@ -46,52 +93,97 @@ public class GameController {
         model.addAttribute("board", game.getBoard());
         model.addAttribute("gameId", gameId);
         model.addAttribute("difficulty", game.getDifficultyLevel()); // <-- ADD THIS LINE
-
-        if (game.getStatus() != GameStatus.IN_PROGRESS) {
-            model.addAttribute("gameSummary", gameService.getGameSummary(gameId));
-        }
+        model.addAttribute("version", game.getVersion());
 
         return "game";
     }
 
 
 
+    // The player's move and the AI's reply run on the move executor, so long searches never hold
+    // a servlet thread. Requests that find the executor full get a 503 straight away.
     @PostMapping("/game/{gameId}/move")
     @ResponseBody
-    public MoveResponse makeMove(@PathVariable String gameId, @RequestParam("column") int column) {
+    public DeferredResult<ResponseEntity<MoveResponse>> makeMove(@PathVariable String gameId,
+                                                                 @RequestParam("column") int column) {
+        long timeoutMs = properties.getMoveTimeoutMs();
+        long receivedNanos = System.nanoTime();
+        long deadlineNanos = receivedNanos + timeoutMs * 1_000_000L;
+
+        // Only a backstop: the search stops at the deadline, well before this fires. A move still in
+        // the queue is dropped so the player can retry it; one already being played will still
+        // land, so the page has to be reloaded to see it.
+        AtomicInteger state = new AtomicInteger(QUEUED);
+        DeferredResult<ResponseEntity<MoveResponse>> result = new DeferredResult<>(2 * timeoutMs);
+        result.onTimeout(() -> result.setResult(state.compareAndSet(QUEUED, ABANDONED)
+                ? serverBusy("The AI took too long, please try again", GameStatus.IN_PROGRESS)
+                : serverBusy("The AI is still finishing its move, please reload the page", GameStatus.IN_PROGRESS)));
+
         Game game = gameService.getGame(gameId);
         if (game == null) {
-            return new MoveResponse(false, "Game not found", null, GameStatus.IN_PROGRESS);
+            result.setResult(ResponseEntity.ok(
+                    new MoveResponse(false, "Game not found", null, GameStatus.IN_PROGRESS)));
+            return result;
         }
 
-        int playerRow = gameService.makePlayerMove(gameId, column);
-        if (playerRow == -1) {
-            return new MoveResponse(false, "Invalid move", null, game.getStatus());
+        try {
+            moveExecutor.execute(() -> {
+                // Only the wait for a thread: the search's own think time is not load
+                budgetScheduler.recordQueueWait(System.nanoTime() - receivedNanos);
+                if (!state.compareAndSet(QUEUED, STARTED)) {
+                    // The request already timed out and told the player to retry
+                    return;
+                }
+                try {
+                    result.setResult(playTurn(game, gameId, column, deadlineNanos));
+                } catch (RuntimeException e) {
+                    result.setErrorResult(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.setResult(serverBusy("The server is busy, please try again", game.getStatus()));
         }
+        return result;
+    }
 
-        MoveResponse response = new MoveResponse(true, "Move successful",
-                new MoveInfo(column, playerRow), game.getStatus());
 
-        if (game.getStatus() == GameStatus.IN_PROGRESS) {
-            Move aiMove = gameService.makeAIMove(gameId);
-            if (aiMove != null) {
-                response.setAiMove(new MoveInfo(aiMove.getColumn(), aiMove.getRow()));
-                response.setGameStatus(game.getStatus());
+    private ResponseEntity<MoveResponse> playTurn(Game game, String gameId, int column, long deadlineNanos) {
+        GameService.TurnResult turn = gameService.playTurn(gameId, column, deadlineNanos);
+        return switch (turn.outcome()) {
+            // Waited out the whole timeout in the queue: the game was left as it was so the move can be retried
+            case TIMED_OUT -> serverBusy("The server is busy, please try again", game.getStatus());
+            case NOT_FOUND -> ResponseEntity.ok(new MoveResponse(false, "Game not found", null, GameStatus.IN_PROGRESS));
+            case INVALID -> ResponseEntity.ok(new MoveResponse(false, "Invalid move", null, turn.status()));
+            case PLAYED -> ResponseEntity.ok(moveResponse(turn));
+        };
+    }
 
 
-                if (game.getStatus() != GameStatus.IN_PROGRESS) {
-                    response.setGameSummary(gameService.getGameSummary(gameId));
-                }
-            }
-        } else {
+    private static ResponseEntity<MoveResponse> serverBusy(String message, GameStatus gameStatus) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new MoveResponse(false, message, null, gameStatus));
+    }
 
-            response.setGameSummary(gameService.getGameSummary(gameId));
-        }
 
+    private static MoveResponse moveResponse(GameService.TurnResult turn) {
+        Move playerMove = turn.playerMove();
+        MoveResponse response = new MoveResponse(true, "Move successful",
+                new MoveInfo(playerMove.getColumn(), playerMove.getRow()), turn.status());
+        if (turn.aiMove() != null) {
+            response.setAiMove(new MoveInfo(turn.aiMove().getColumn(), turn.aiMove().getRow()));
+        }
+        response.setGameSummary(turn.summary());
         return response;
     }
 
 
+    // Server-Sent Events: ever deeper suggestions for the player's move until the hint time cap
+    @GetMapping(value = "/game/{gameId}/hint", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter hint(@PathVariable String gameId) {
+        return hintService.streamHint(gameId);
+    }
+
+
     @PostMapping("/game/{gameId}/reset")
     public String resetGame(@PathVariable String gameId) {
         gameService.resetGame(gameId);
@@ -107,16 +199,46 @@ public class GameController {
 
     @GetMapping("/game/{gameId}/analysis")
     public String showGameAnalysis(@PathVariable String gameId, Model model) {
-        Game game = gameService.getGame(gameId);
+        // A copy taken under the lock, as for the game page
+        Game game = gameService.withGame(gameId, Game::new);
         if (game == null) {
             return "redirect:/";
         }
 
+        // Only finished games are reviewed, so a review never goes stale
         model.addAttribute("game", game);
         model.addAttribute("difficulty", game.getDifficultyLevel());
+        if (game.getStatus() == GameStatus.IN_PROGRESS) {
+            model.addAttribute("reviewMessage", "The move review is available once the game is over.");
+        } else {
+            addReview(model, reviewService.review(game.getBoard().getMoveHistory()));
+        }
         return "analysis";
     }
 
+
+    // Waits at most reviewWaitMs for the review; a longer one keeps running for the next view
+    private void addReview(Model model, CompletableFuture<GameReview> review) {
+        if (review == null) {
+            model.addAttribute("reviewMessage",
+                    "The server is busy with moves right now, please reload the page in a moment for the move review.");
+            return;
+        }
+        try {
+            model.addAttribute("review", review.get(properties.getReviewWaitMs(), TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            model.addAttribute("reviewMessage",
+                    "The move review is still running, please reload the page in a few seconds.");
+        } catch (ExecutionException e) {
+            log.warn("Game review failed", e.getCause());
+            model.addAttribute("reviewMessage", "The move review failed, please reload the page to try again.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            model.addAttribute("reviewMessage",
+                    "The move review is still running, please reload the page in a few seconds.");
+        }
+    }
+
     public static class MoveResponse {
         private boolean success;
         private String message;
@@ -0,0 +1,268 @@
+package com.game.connect4.controller;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.connect4.config.AIProperties;
+import com.game.connect4.model.GameStatus;
+import com.game.connect4.model.Move;
+import com.game.connect4.service.GameService;
+import com.game.connect4.service.SearchBudgetScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+// The game page's WebSocket channel, one per game: the client sends moves, resets and difficulty
+// changes as small JSON messages, and every page open on the game gets each change pushed back as
+// a delta ("playerMove", "aiMove", "reset", "difficulty") instead of a re-rendered page; "thinking",
+// "moveRefused" (a move turned down) and "error" only go to the page that asked. Moves run on the
+// move executor through the same GameService.playTurn as POST /game/{gameId}/move, with the same
+// deadline and load shedding.
+@Component
+public class GameSocketHandler extends TextWebSocketHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(GameSocketHandler.class);
+
+    // A client that falls this far behind on reading its updates is dropped
+    private static final int SEND_TIME_LIMIT_MS = 5000;
+    private static final int SEND_BUFFER_BYTES = 64 * 1024;
+
+    // Session attribute holding the thread-safe wrapper every send goes through
+    private static final String SENDER = "sender";
+
+    private final GameService gameService;
+    private final ThreadPoolExecutor moveExecutor;
+    private final AIProperties properties;
+    private final SearchBudgetScheduler budgetScheduler;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+
+    @Autowired
+    public GameSocketHandler(GameService gameService, ThreadPoolExecutor moveExecutor, AIProperties properties,
+                             SearchBudgetScheduler budgetScheduler, ObjectMapper objectMapper) {
+        this.gameService = gameService;
+        this.moveExecutor = moveExecutor;
+        this.properties = properties;
+        this.budgetScheduler = budgetScheduler;
+        this.objectMapper = objectMapper;
+    }
+
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws IOException {
+        String gameId = gameId(session);
+        if (gameService.getGame(gameId) == null) {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("Game not found"));
+            return;
+        }
+        WebSocketSession sender = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS,
+                SEND_BUFFER_BYTES);
+        session.getAttributes().put(SENDER, sender);
+        channels.computeIfAbsent(gameId, id -> new Channel()).sessions.add(sender);
+    }
+
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        String gameId = gameId(session);
+        channels.computeIfPresent(gameId, (id, channel) -> {
+            channel.sessions.removeIf(open -> open.getId().equals(session.getId()));
+            return channel.sessions.isEmpty() ? null : channel;
+        });
+    }
+
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+        String gameId = gameId(session);
+        WebSocketSession sender = (WebSocketSession) session.getAttributes().get(SENDER);
+        JsonNode request;
+        try {
+            request = objectMapper.readTree(message.getPayload());
+        } catch (JsonProcessingException e) {
+            send(sender, Update.error("Unknown message"));
+            return;
+        }
+        switch (request.path("type").asText()) {
+            case "move" -> submitMove(sender, gameId, request.path("column").asInt(-1));
+            case "reset" -> {
+                gameService.withGame(gameId, game -> {
+                    queue(gameId, Update.reset(gameService.resetGame(gameId)));
+                    return null;
+                });
+                flush(gameId);
+            }
+            case "difficulty" -> {
+                int level = request.path("level").asInt();
+                if (!gameService.getDifficultyLevels().containsValue(level)) {
+                    send(sender, Update.error("Unknown difficulty level"));
+                    return;
+                }
+                gameService.withGame(gameId, game -> {
+                    queue(gameId, Update.difficulty(level, gameService.setDifficultyLevel(gameId, level)));
+                    return null;
+                });
+                flush(gameId);
+            }
+            default -> send(sender, Update.error("Unknown message"));
+        }
+    }
+
+
+    // Errors go back to the session that sent the move; everything else to the whole channel
+    private void submitMove(WebSocketSession session, String gameId, int column) {
+        long receivedNanos = System.nanoTime();
+        long deadlineNanos = receivedNanos + properties.getMoveTimeoutMs() * 1_000_000L;
+        try {
+            moveExecutor.execute(() -> {
+                budgetScheduler.recordQueueWait(System.nanoTime() - receivedNanos);
+                try {
+                    playTurn(session, gameId, column, deadlineNanos);
+                } catch (RuntimeException e) {
+                    log.warn("Move failed for game {}", gameId, e);
+                    send(session, Update.moveRefused("The move failed, please try again"));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            send(session, Update.moveRefused("The server is busy, please try again"));
+        }
+    }
+
+
+    // The sender hears the AI is thinking straight away; the moves are queued for the whole
+    // channel while the turn still holds the game's lock, and sent once it is released
+    private void playTurn(WebSocketSession session, String gameId, int column, long deadlineNanos) {
+        send(session, Update.thinking());
+        if (System.nanoTime() > deadlineNanos) {
+            send(session, Update.moveRefused("The server is busy, please try again"));
+            return;
+        }
+        GameService.TurnResult turn = gameService.withGame(gameId, game -> {
+            GameService.TurnResult played = gameService.playTurn(gameId, column, deadlineNanos);
+            if (played.outcome() == GameService.TurnOutcome.PLAYED) {
+                queue(gameId, Update.move("playerMove", played.playerMove(), played.statusAfterPlayerMove(),
+                        played.playerAnalysis(), played.playerVersion()));
+                if (played.aiMove() != null) {
+                    queue(gameId, Update.move("aiMove", played.aiMove(), played.status(), played.aiAnalysis(),
+                            played.version()));
+                }
+            }
+            return played;
+        });
+        flush(gameId);
+
+        GameService.TurnOutcome outcome = turn == null ? GameService.TurnOutcome.NOT_FOUND : turn.outcome();
+        switch (outcome) {
+            case TIMED_OUT -> send(session, Update.moveRefused("The server is busy, please try again"));
+            case NOT_FOUND -> send(session, Update.moveRefused("Game not found"));
+            case INVALID -> send(session, Update.moveRefused("Invalid move"));
+            case PLAYED -> {
+            }
+        }
+    }
+
+
+    // Call with the game's lock held, so updates are queued in the order the game changed
+    private void queue(String gameId, Update update) {
+        Channel channel = channels.get(gameId);
+        if (channel != null) {
+            channel.pending.add(update);
+        }
+    }
+
+
+    // Call once the game's lock is released. One thread at a time sends a channel's queued
+    // updates, in order; a thread that finds another one sending leaves its updates to it.
+    private void flush(String gameId) {
+        Channel channel = channels.get(gameId);
+        if (channel == null) {
+            return;
+        }
+        while (!channel.pending.isEmpty() && channel.sending.compareAndSet(false, true)) {
+            try {
+                Update update;
+                while ((update = channel.pending.poll()) != null) {
+                    for (WebSocketSession session : channel.sessions) {
+                        send(session, update);
+                    }
+                }
+            } finally {
+                channel.sending.set(false);
+            }
+        }
+    }
+
+
+    private void send(WebSocketSession session, Update update) {
+        try {
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(update)));
+        } catch (IOException | IllegalStateException e) {
+            // Closed or too slow; afterConnectionClosed takes it off the channel
+            log.debug("Could not send {} to session {}", update.type(), session.getId());
+        }
+    }
+
+
+    // Path is /game/{gameId}/ws
+    private static String gameId(WebSocketSession session) {
+        String[] segments = session.getUri().getPath().split("/");
+        return segments[segments.length - 2];
+    }
+
+
+    // The pages open on one game, and the updates waiting to go out to them
+    private static class Channel {
+        private final Set<WebSocketSession> sessions = ConcurrentHashMap.newKeySet();
+        private final Queue<Update> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+    }
+
+
+    // version is set on the updates that change the game; "thinking" and "error" have none
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record Update(String type, Integer column, Integer row, GameStatus status, String analysis, Integer level,
+                  String message, Long version) {
+
+        static Update thinking() {
+            return new Update("thinking", null, null, null, null, null, null, null);
+        }
+
+        static Update move(String type, Move move, GameStatus status, String analysis, long version) {
+            return new Update(type, move.getColumn(), move.getRow(), status, analysis, null, null, version);
+        }
+
+        static Update reset(long version) {
+            return new Update("reset", null, null, GameStatus.IN_PROGRESS, null, null, null, version);
+        }
+
+        static Update difficulty(int level, long version) {
+            return new Update("difficulty", null, null, null, null, level, null, version);
+        }
+
+        static Update moveRefused(String message) {
+            return new Update("moveRefused", null, null, null, null, null, message, null);
+        }
+
+        static Update error(String message) {
+            return new Update("error", null, null, null, null, null, message, null);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.game.connect4.controller;
+
+import com.game.connect4.model.SearchTelemetryReport;
+import com.game.connect4.service.SearchTelemetryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+
+// Search telemetry as JSON, over the searches still in the telemetry ring
+@Controller
+public class TelemetryController {
+
+    private final SearchTelemetryService telemetryService;
+
+    @Autowired
+    public TelemetryController(SearchTelemetryService telemetryService) {
+        this.telemetryService = telemetryService;
+    }
+
+
+    @GetMapping("/telemetry/searches")
+    @ResponseBody
+    public SearchTelemetryReport searches() {
+        return telemetryService.report();
+    }
+
+
+    @GetMapping("/game/{gameId}/telemetry")
+    @ResponseBody
+    public SearchTelemetryReport gameSearches(@PathVariable String gameId) {
+        return telemetryService.report(gameId);
+    }
+}
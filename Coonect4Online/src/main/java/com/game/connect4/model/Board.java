@@ -4,22 +4,55 @@ import com.game.connect4.utils.Constants;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.SplittableRandom;
 
 
 public class Board {
-    private Player[][] grid;
+    // Each column takes ROWS + 1 bits (the extra bit is an always-empty sentinel that stops
+    // shifts from wrapping into the next column). Bit index = column * COLUMN_BITS + height.
+    private static final int COLUMN_BITS = Constants.ROWS + 1;
+
+    // Shift amounts for vertical, horizontal and the two diagonal directions
+    private static final int[] DIRECTIONS = {1, COLUMN_BITS, COLUMN_BITS - 1, COLUMN_BITS + 1};
+
+    // Zobrist keys per side and bit index, fixed seed so hashes are stable across restarts
+    private static final long[] PLAYER_KEYS = new long[Constants.COLUMNS * COLUMN_BITS];
+    private static final long[] AI_KEYS = new long[Constants.COLUMNS * COLUMN_BITS];
+
+    // Every four-cell window on the board, and for each bit index the windows that contain it
+    private static final int[][] WINDOW_CELLS = buildWindows();
+    private static final int[][] CELL_WINDOWS = buildCellWindows();
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x434F4E4E45435434L);
+        for (int i = 0; i < PLAYER_KEYS.length; i++) {
+            PLAYER_KEYS[i] = random.nextLong();
+            AI_KEYS[i] = random.nextLong();
+        }
+    }
+
+    private long playerBits;
+    private long aiBits;
+    private long hash;
     private int[] columnHeights;
+    private int moveCount;
+
+    // Column of every disc in play order, for both game and search moves
+    private int[] columnStack;
     private List<Move> moveHistory;
 
+    // Disc counts per window and the resulting heuristic score (AI minus player), kept up to
+    // date by makeMove/undoMove so reading it at a leaf is O(1)
+    private byte[] windowAiCounts;
+    private byte[] windowPlayerCounts;
+    private int positionalScore;
+
     public Board() {
-        grid = new Player[Constants.ROWS][Constants.COLUMNS];
         columnHeights = new int[Constants.COLUMNS];
+        columnStack = new int[Constants.ROWS * Constants.COLUMNS];
         moveHistory = new ArrayList<>();
-
-        // Initialize the board with NONE player
-        for (Player[] row : grid) {
-            Arrays.fill(row, Player.NONE);
-        }
+        windowAiCounts = new byte[WINDOW_CELLS.length];
+        windowPlayerCounts = new byte[WINDOW_CELLS.length];
 
         // Initialize column heights to 0
         Arrays.fill(columnHeights, 0);
@@ -27,41 +60,66 @@ public class Board {
 
 
     public Board(Board board) {
-        grid = new Player[Constants.ROWS][Constants.COLUMNS];
-        columnHeights = new int[Constants.COLUMNS];
+        playerBits = board.playerBits;
+        aiBits = board.aiBits;
+        hash = board.hash;
+        columnHeights = Arrays.copyOf(board.columnHeights, Constants.COLUMNS);
+        moveCount = board.moveCount;
+        columnStack = Arrays.copyOf(board.columnStack, board.columnStack.length);
         moveHistory = new ArrayList<>(board.getMoveHistory());
+        windowAiCounts = Arrays.copyOf(board.windowAiCounts, WINDOW_CELLS.length);
+        windowPlayerCounts = Arrays.copyOf(board.windowPlayerCounts, WINDOW_CELLS.length);
+        positionalScore = board.positionalScore;
+    }
 
-        // Deep copy of the grid
-        for (int i = 0; i < Constants.ROWS; i++) {
-            grid[i] = Arrays.copyOf(board.grid[i], Constants.COLUMNS);
+
+    public int makeMove(int column, Player player) {
+        int row = makeSearchMove(column, player);
+        if (row == -1) {
+            return -1;
         }
 
-        // Copy column heights
-        System.arraycopy(board.columnHeights, 0, columnHeights, 0, Constants.COLUMNS);
+        Move move = new Move(column, row, player);
+        moveHistory.add(move);
+
+        return row;
     }
 
 
-    public int makeMove(int column, Player player) {
+    // Drops a disc without recording a Move in the history. Used by the AI search, which
+    // takes moves back in LIFO order with undoSearchMove, so nothing is allocated per node.
+    public int makeSearchMove(int column, Player player) {
         if (!isValidMove(column)) {
             return -1;
         }
 
         int row = Constants.ROWS - 1 - columnHeights[column];
-        grid[row][column] = player;
+        int index = column * COLUMN_BITS + columnHeights[column];
+        long cell = 1L << index;
+        if (player == Player.AI) {
+            aiBits |= cell;
+            hash ^= AI_KEYS[index];
+        } else {
+            playerBits |= cell;
+            hash ^= PLAYER_KEYS[index];
+        }
+        updateWindows(index, column, player == Player.AI, 1);
         columnHeights[column]++;
-
-        Move move = new Move(column, row, player);
-        moveHistory.add(move);
+        columnStack[moveCount] = column;
+        moveCount++;
 
         return row;
     }
 
 
+    // Takes back the last move played. The column is checked against it: taking a disc off any
+    // other column would leave the move order out of step with the board.
     public void undoMove(int column) {
         if (columnHeights[column] > 0) {
-            columnHeights[column]--;
-            int row = Constants.ROWS - 1 - columnHeights[column];
-            grid[row][column] = Player.NONE;
+            if (column != getLastColumn()) {
+                throw new IllegalArgumentException("Column " + column + " is not the last move played");
+            }
+            removeTopDisc(column);
 
             if (!moveHistory.isEmpty()) {
                 moveHistory.remove(moveHistory.size() - 1);
@@ -70,6 +128,31 @@ public class Board {
     }
 
 
+    public void undoSearchMove() {
+        if (moveCount > 0) {
+            removeTopDisc(columnStack[moveCount - 1]);
+        }
+    }
+
+
+    private void removeTopDisc(int column) {
+        columnHeights[column]--;
+        moveCount--;
+
+        int index = column * COLUMN_BITS + columnHeights[column];
+        long cell = 1L << index;
+        boolean aiDisc = (aiBits & cell) != 0;
+        if (aiDisc) {
+            aiBits &= ~cell;
+            hash ^= AI_KEYS[index];
+        } else {
+            playerBits &= ~cell;
+            hash ^= PLAYER_KEYS[index];
+        }
+        updateWindows(index, column, aiDisc, -1);
+    }
+
+
     public boolean isValidMove(int column) {
         return column >= 0 && column < Constants.COLUMNS && columnHeights[column] < Constants.ROWS;
     }
@@ -87,60 +170,146 @@ public class Board {
 
 
     public boolean isFull() {
-        for (int col = 0; col < Constants.COLUMNS; col++) {
-            if (columnHeights[col] < Constants.ROWS) {
-                return false;
+        return moveCount == Constants.ROWS * Constants.COLUMNS;
+    }
+
+
+    public boolean checkWin(int row, int column, Player player) {
+        long bits = getBitboard(player);
+        long cell = 1L << cellIndex(row, column);
+        if ((bits & cell) == 0) {
+            return false;
+        }
+
+        for (int shift : DIRECTIONS) {
+            // Bits that start a run of four in this direction
+            long pairs = bits & (bits >> shift);
+            long fours = pairs & (pairs >> (2 * shift));
+
+            // The cell is part of a run if a run starts on it or up to three steps before it
+            long starts = cell | (cell >> shift) | (cell >> (2 * shift)) | (cell >> (3 * shift));
+            if ((fours & starts) != 0) {
+                return true;
             }
         }
-        return true;
+
+        return false;
     }
 
 
-    public boolean checkWin(int row, int column, Player player) {
-        // Check horizontal
-        if (checkDirection(row, column, 0, 1, player) + checkDirection(row, column, 0, -1, player) - 1 >= 4) {
-            return true;
+    // Adds (delta = 1) or removes (delta = -1) a disc's contribution to the positional score
+    private void updateWindows(int index, int column, boolean aiDisc, int delta) {
+        positionalScore += aiDisc ? delta * Constants.COLUMN_WEIGHTS[column] : -delta * Constants.COLUMN_WEIGHTS[column];
+
+        for (int window : CELL_WINDOWS[index]) {
+            positionalScore -= windowScore(window);
+            if (aiDisc) {
+                windowAiCounts[window] += delta;
+            } else {
+                windowPlayerCounts[window] += delta;
+            }
+            positionalScore += windowScore(window);
         }
+    }
 
-        // Check vertical
-        if (checkDirection(row, column, 1, 0, player) + checkDirection(row, column, -1, 0, player) - 1 >= 4) {
-            return true;
+
+    private int windowScore(int window) {
+        if (windowPlayerCounts[window] == 0) {
+            return Constants.WINDOW_SCORES[windowAiCounts[window]];
+        } else if (windowAiCounts[window] == 0) {
+            return -Constants.WINDOW_SCORES[windowPlayerCounts[window]];
         }
+        return 0;
+    }
 
-        // Check diagonal (top-left to bottom-right)
-        if (checkDirection(row, column, -1, -1, player) + checkDirection(row, column, 1, 1, player) - 1 >= 4) {
-            return true;
+
+    private static int[][] buildWindows() {
+        List<int[]> windows = new ArrayList<>();
+        int[][] deltas = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+        for (int[] delta : deltas) {
+            for (int row = 0; row < Constants.ROWS; row++) {
+                for (int col = 0; col < Constants.COLUMNS; col++) {
+                    int endRow = row + 3 * delta[0];
+                    int endCol = col + 3 * delta[1];
+                    if (endRow < 0 || endRow >= Constants.ROWS || endCol < 0 || endCol >= Constants.COLUMNS) {
+                        continue;
+                    }
+
+                    int[] cells = new int[4];
+                    for (int i = 0; i < 4; i++) {
+                        cells[i] = cellIndex(row + i * delta[0], col + i * delta[1]);
+                    }
+                    windows.add(cells);
+                }
+            }
         }
+        return windows.toArray(new int[0][]);
+    }
 
-        // Check diagonal (top-right to bottom-left)
-        if (checkDirection(row, column, -1, 1, player) + checkDirection(row, column, 1, -1, player) - 1 >= 4) {
-            return true;
+
+    private static int[][] buildCellWindows() {
+        List<List<Integer>> byCell = new ArrayList<>();
+        for (int i = 0; i < Constants.COLUMNS * COLUMN_BITS; i++) {
+            byCell.add(new ArrayList<>());
+        }
+        for (int window = 0; window < WINDOW_CELLS.length; window++) {
+            for (int cell : WINDOW_CELLS[window]) {
+                byCell.get(cell).add(window);
+            }
         }
 
-        return false;
+        int[][] cellWindows = new int[byCell.size()][];
+        for (int i = 0; i < cellWindows.length; i++) {
+            cellWindows[i] = byCell.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return cellWindows;
     }
 
 
-    private int checkDirection(int row, int column, int rowDelta, int colDelta, Player player) {
-        int count = 0;
-        int r = row;
-        int c = column;
+    private static int cellIndex(int row, int column) {
+        return column * COLUMN_BITS + (Constants.ROWS - 1 - row);
+    }
 
-        while (r >= 0 && r < Constants.ROWS && c >= 0 && c < Constants.COLUMNS && grid[r][c] == player) {
-            count++;
-            r += rowDelta;
-            c += colDelta;
+    public long getBitboard(Player player) {
+        if (player == Player.AI) {
+            return aiBits;
+        } else if (player == Player.PLAYER) {
+            return playerBits;
         }
+        return 0L;
+    }
+
+    // Column weights plus window scores, from the AI's point of view
+    public int getPositionalScore() {
+        return positionalScore;
+    }
 
-        return count;
+    public long getHash() {
+        return hash;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
     }
 
     public Player[][] getGrid() {
+        Player[][] grid = new Player[Constants.ROWS][Constants.COLUMNS];
+        for (int row = 0; row < Constants.ROWS; row++) {
+            for (int col = 0; col < Constants.COLUMNS; col++) {
+                grid[row][col] = getCell(row, col);
+            }
+        }
         return grid;
     }
 
     public Player getCell(int row, int col) {
-        return grid[row][col];
+        long cell = 1L << cellIndex(row, col);
+        if ((aiBits & cell) != 0) {
+            return Player.AI;
+        } else if ((playerBits & cell) != 0) {
+            return Player.PLAYER;
+        }
+        return Player.NONE;
     }
 
     public int[] getColumnHeights() {
@@ -152,6 +321,12 @@ public class Board {
     }
 
 
+    // Column of the most recent disc (game or search move), or -1 on an empty board
+    public int getLastColumn() {
+        return moveCount == 0 ? -1 : columnStack[moveCount - 1];
+    }
+
+
     public Move getLastMove() {
         if (moveHistory.isEmpty()) {
             return null;
@@ -165,7 +340,7 @@ public class Board {
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < Constants.ROWS; i++) {
             for (int j = 0; j < Constants.COLUMNS; j++) {
-                switch (grid[i][j]) {
+                switch (getCell(i, j)) {
                     case NONE:
                         sb.append("· ");
                         break;
@@ -183,4 +358,4 @@ public class Board {
         sb.append("0 1 2 3 4 5 6\n");
         return sb.toString();
     }
-}
\ No newline at end of file
+}
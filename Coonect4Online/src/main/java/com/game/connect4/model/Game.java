@@ -2,7 +2,9 @@ package com.game.connect4.model;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 public class Game {
@@ -12,9 +14,19 @@ public class Game {
     private Player currentPlayer;
     private int difficultyLevel;
     private List<String> gameAnalysis;
+    private SearchResult lastSearch;
+    private final Map<Long, SearchResult> ponderedResults = new ConcurrentHashMap<>();
+    // Counts the changes pages see (moves, resets, difficulty), so they can tell a stale update
+    private long version;
 
     public Game(int difficultyLevel) {
-        this.id = UUID.randomUUID().toString();
+        this(UUID.randomUUID().toString(), difficultyLevel);
+    }
+
+
+    // For games restored from storage; the moves are replayed onto it afterwards
+    public Game(String id, int difficultyLevel) {
+        this.id = id;
         this.board = new Board();
         this.status = GameStatus.IN_PROGRESS;
         this.currentPlayer = Player.PLAYER; // Player starts first
@@ -23,11 +35,27 @@ public class Game {
     }
 
 
+    // A copy for pages to render, which later moves and resets leave alone; take it under the
+    // game's lock. Searches kept for reuse are not copied.
+    public Game(Game game) {
+        this.id = game.id;
+        this.board = new Board(game.board);
+        this.status = game.status;
+        this.currentPlayer = game.currentPlayer;
+        this.difficultyLevel = game.difficultyLevel;
+        this.gameAnalysis = new ArrayList<>(game.gameAnalysis);
+        this.version = game.version;
+    }
+
+
     public void resetGame() {
         this.board = new Board();
         this.status = GameStatus.IN_PROGRESS;
         this.currentPlayer = Player.PLAYER;
         this.gameAnalysis.clear();
+        this.lastSearch = null;
+        this.ponderedResults.clear();
+        this.version++;
     }
 
 
@@ -40,6 +68,7 @@ public class Game {
         if (row == -1) {
             return -1;
         }
+        version++;
 
         // Check for win
         if (board.checkWin(row, column, currentPlayer)) {
@@ -80,6 +109,11 @@ public class Game {
 
     public void setDifficultyLevel(int difficultyLevel) {
         this.difficultyLevel = difficultyLevel;
+        this.version++;
+    }
+
+    public long getVersion() {
+        return version;
     }
 
     public List<String> getGameAnalysis() {
@@ -90,6 +124,28 @@ public class Game {
         this.gameAnalysis.add(analysis);
     }
 
+    // Latest root search, reused while the position and level have not changed
+    public SearchResult getLastSearch() {
+        return lastSearch;
+    }
+
+    public void setLastSearch(SearchResult lastSearch) {
+        this.lastSearch = lastSearch;
+    }
+
+    // Results searched in the background for positions the player may move into
+    public SearchResult getPonderedResult(long positionHash) {
+        return ponderedResults.get(positionHash);
+    }
+
+    public void addPonderedResult(SearchResult result) {
+        ponderedResults.put(result.getPositionHash(), result);
+    }
+
+    public void clearPonderedResults() {
+        ponderedResults.clear();
+    }
+
 
     public Game copy() {
         Game gameCopy = new Game(this.difficultyLevel);
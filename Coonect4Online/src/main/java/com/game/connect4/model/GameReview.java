@@ -0,0 +1,120 @@
+package com.game.connect4.model;
+
+import com.game.connect4.utils.Constants;
+
+import java.util.List;
+
+
+// Every move of a game scored against the best one available, from the point of view of the
+// side that played it
+public class GameReview {
+    private final List<MoveReview> moves;
+    private final int depth;
+
+    public GameReview(List<MoveReview> moves, int depth) {
+        this.moves = List.copyOf(moves);
+        this.depth = depth;
+    }
+
+    public List<MoveReview> getMoves() {
+        return moves;
+    }
+
+    // Search depth every position was scored at (less near the end of the board)
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getBlunders(Player player) {
+        return moves.stream().filter(move -> move.getPlayer() == player && move.isBlunder()).count();
+    }
+
+    public long getPlayerBlunders() {
+        return getBlunders(Player.PLAYER);
+    }
+
+    public long getAiBlunders() {
+        return getBlunders(Player.AI);
+    }
+
+
+    public static class MoveReview {
+        // A move this much below the best one is a blunder even when neither is a proven result
+        public static final int BLUNDER_MARGIN = 200;
+
+        private final int ply;
+        private final Player player;
+        private final int column;
+        private final int score;
+        private final int bestColumn;
+        private final int bestScore;
+
+        public MoveReview(int ply, Player player, int column, int score, int bestColumn, int bestScore) {
+            this.ply = ply;
+            this.player = player;
+            this.column = column;
+            this.score = score;
+            this.bestColumn = bestColumn;
+            this.bestScore = bestScore;
+        }
+
+        // 1 for the first move of the game
+        public int getPly() {
+            return ply;
+        }
+
+        public Player getPlayer() {
+            return player;
+        }
+
+        public int getColumn() {
+            return column;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public int getBestColumn() {
+            return bestColumn;
+        }
+
+        public int getBestScore() {
+            return bestScore;
+        }
+
+        public boolean isBest() {
+            return score >= bestScore;
+        }
+
+        // Threw away a forced win, walked into a forced loss, or fell well short of the best move
+        public boolean isBlunder() {
+            if (isBest()) {
+                return false;
+            }
+            return isWin(bestScore) && !isWin(score)
+                    || isLoss(score) && !isLoss(bestScore)
+                    || bestScore - score >= BLUNDER_MARGIN;
+        }
+
+        public String getScoreText() {
+            return scoreText(score);
+        }
+
+        public String getBestScoreText() {
+            return scoreText(bestScore);
+        }
+
+        private static boolean isWin(int score) {
+            return score >= Constants.WIN_SCORE - 100;
+        }
+
+        private static boolean isLoss(int score) {
+            return score <= Constants.LOSE_SCORE + 100;
+        }
+
+        private static String scoreText(int score) {
+            return isWin(score) ? "win" : isLoss(score) ? "loss" : String.valueOf(score);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.game.connect4.model;
+
+import java.util.Arrays;
+
+
+// Outcome of one root search, scored from the point of view of the side that was to move.
+// Kept on the Game so the AI reply and the grade of the player's move share a single search.
+public class SearchResult {
+    // Column score for columns that are full or were not searched on their own
+    public static final int NO_SCORE = Integer.MIN_VALUE;
+
+    private final long positionHash;
+    // The position itself, since two positions can share a hash
+    private final long aiBits;
+    private final long playerBits;
+    private final int difficultyLevel;
+    private final int bestColumn;
+    private final int bestScore;
+    private final int[] columnScores;
+    private final int depth;
+    private final double budgetScale;
+
+    public SearchResult(Board board, int difficultyLevel, int bestColumn, int bestScore,
+                        int[] columnScores, int depth) {
+        this(board.getHash(), board.getBitboard(Player.AI), board.getBitboard(Player.PLAYER), difficultyLevel,
+                bestColumn, bestScore, columnScores, depth, 1.0);
+    }
+
+    private SearchResult(long positionHash, long aiBits, long playerBits, int difficultyLevel, int bestColumn,
+                         int bestScore, int[] columnScores, int depth, double budgetScale) {
+        this.positionHash = positionHash;
+        this.aiBits = aiBits;
+        this.playerBits = playerBits;
+        this.difficultyLevel = difficultyLevel;
+        this.bestColumn = bestColumn;
+        this.bestScore = bestScore;
+        this.columnScores = columnScores;
+        this.depth = depth;
+        this.budgetScale = budgetScale;
+    }
+
+
+    // The same result, noted as searched with a reduced time budget
+    public SearchResult withBudgetScale(double budgetScale) {
+        return new SearchResult(positionHash, aiBits, playerBits, difficultyLevel, bestColumn, bestScore,
+                columnScores, depth, budgetScale);
+    }
+
+
+    // True when this result was searched from the same position at the same level. The discs are
+    // compared too, so a hash collision cannot hand over another position's move.
+    public boolean matches(Board board, int difficultyLevel) {
+        return positionHash == board.getHash() && aiBits == board.getBitboard(Player.AI)
+                && playerBits == board.getBitboard(Player.PLAYER) && this.difficultyLevel == difficultyLevel;
+    }
+
+    public long getPositionHash() {
+        return positionHash;
+    }
+
+    public int getDifficultyLevel() {
+        return difficultyLevel;
+    }
+
+    public int getBestColumn() {
+        return bestColumn;
+    }
+
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    public int getColumnScore(int column) {
+        return columnScores[column];
+    }
+
+    public int[] getColumnScores() {
+        return columnScores.clone();
+    }
+
+    // Deepest completed iteration; 0 for book, solver and single-move results
+    public int getDepth() {
+        return depth;
+    }
+
+    // Share of the level's usual time budget the search had; below 1.0 when the server was busy
+    public double getBudgetScale() {
+        return budgetScale;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchResult{" +
+                "bestColumn=" + bestColumn +
+                ", bestScore=" + bestScore +
+                ", columnScores=" + Arrays.toString(columnScores) +
+                ", depth=" + depth +
+                ", budgetScale=" + budgetScale +
+                '}';
+    }
+}
@@ -0,0 +1,169 @@
+package com.game.connect4.model;
+
+import com.game.connect4.ai.SearchStatistics;
+
+
+// What one AI search did: where its move came from, how deep it got, how many nodes it took and
+// how well its cutoffs and table worked. Filled in by AIService as the search runs; left alone
+// once recorded.
+public class SearchTelemetry {
+
+    public enum Source {
+        // The only playable column
+        SINGLE_MOVE,
+        // A win on the spot, a forced block or a double threat
+        TACTICS,
+        OPENING_BOOK,
+        SOLVER,
+        SEARCH,
+        // Another game's search of the same position at the same level
+        POSITION_CACHE,
+        MONTE_CARLO
+    }
+
+    private final String gameId;
+    private final long timestamp;
+    private final int difficultyLevel;
+    private final int ply;
+    private final boolean pondered;
+    private Source source = Source.SEARCH;
+    private boolean bookProbed;
+    private double budgetScale = 1.0;
+    private boolean deadlineClipped;
+    private int depth;
+    private long nodes;
+    private long leafEvaluations;
+    private long cutoffs;
+    private long firstMoveCutoffs;
+    private long tableProbes;
+    private long tableHits;
+    private long durationNanos;
+
+    public SearchTelemetry(String gameId, int difficultyLevel, int ply, boolean pondered) {
+        this.gameId = gameId;
+        this.timestamp = System.currentTimeMillis();
+        this.difficultyLevel = difficultyLevel;
+        this.ply = ply;
+        this.pondered = pondered;
+    }
+
+
+    // Counters of one of the searches behind the move; the solver and the search that takes over
+    // from it both count
+    public void addStatistics(SearchStatistics statistics) {
+        nodes += statistics.getNodes();
+        leafEvaluations += statistics.getLeafEvaluations();
+        cutoffs += statistics.getCutoffs();
+        firstMoveCutoffs += statistics.getFirstMoveCutoffs();
+        tableProbes += statistics.getTableProbes();
+        tableHits += statistics.getTableHits();
+    }
+
+
+    public void finish(int depth, long durationNanos) {
+        this.depth = depth;
+        this.durationNanos = durationNanos;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getDifficultyLevel() {
+        return difficultyLevel;
+    }
+
+    public int getPly() {
+        return ply;
+    }
+
+    // Searched in the background for a reply the player might make
+    public boolean isPondered() {
+        return pondered;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    public void setSource(Source source) {
+        this.source = source;
+    }
+
+    public boolean isBookProbed() {
+        return bookProbed;
+    }
+
+    public void setBookProbed(boolean bookProbed) {
+        this.bookProbed = bookProbed;
+    }
+
+    public double getBudgetScale() {
+        return budgetScale;
+    }
+
+    public void setBudgetScale(double budgetScale) {
+        this.budgetScale = budgetScale;
+    }
+
+    // The move's deadline left less than the budget
+    public boolean isDeadlineClipped() {
+        return deadlineClipped;
+    }
+
+    public void setDeadlineClipped(boolean deadlineClipped) {
+        this.deadlineClipped = deadlineClipped;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getLeafEvaluations() {
+        return leafEvaluations;
+    }
+
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    public long getTableProbes() {
+        return tableProbes;
+    }
+
+    public long getTableHits() {
+        return tableHits;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public double getCutoffRate() {
+        return nodes == 0 ? 0.0 : (double) cutoffs / nodes;
+    }
+
+    public double getFirstMoveCutoffRate() {
+        return cutoffs == 0 ? 0.0 : (double) firstMoveCutoffs / cutoffs;
+    }
+
+    public double getTableHitRate() {
+        return tableProbes == 0 ? 0.0 : (double) tableHits / tableProbes;
+    }
+
+    public double getNodesPerSecond() {
+        return durationNanos == 0 ? 0.0 : nodes * 1e9 / durationNanos;
+    }
+}
@@ -0,0 +1,40 @@
+package com.game.connect4.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.Map;
+
+
+// Body of the telemetry endpoints; searches is only listed for a single game
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SearchTelemetryReport {
+    private final boolean enabled;
+    private final SearchTelemetrySummary overall;
+    private final Map<Integer, SearchTelemetrySummary> byDifficulty;
+    private final List<SearchTelemetry> searches;
+
+    public SearchTelemetryReport(boolean enabled, SearchTelemetrySummary overall,
+                                 Map<Integer, SearchTelemetrySummary> byDifficulty, List<SearchTelemetry> searches) {
+        this.enabled = enabled;
+        this.overall = overall;
+        this.byDifficulty = byDifficulty;
+        this.searches = searches;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public SearchTelemetrySummary getOverall() {
+        return overall;
+    }
+
+    public Map<Integer, SearchTelemetrySummary> getByDifficulty() {
+        return byDifficulty;
+    }
+
+    public List<SearchTelemetry> getSearches() {
+        return searches;
+    }
+}
@@ -0,0 +1,87 @@
+package com.game.connect4.model;
+
+
+// Totals over a set of recorded searches, with the rates worked out from them
+public class SearchTelemetrySummary {
+    private long searches;
+    private long nodes;
+    private long leafEvaluations;
+    private long cutoffs;
+    private long firstMoveCutoffs;
+    private long tableProbes;
+    private long tableHits;
+    private long bookProbes;
+    private long bookHits;
+    private long depthTotal;
+    private int maxDepth;
+    private long durationNanos;
+    private long maxDurationNanos;
+
+    public void add(SearchTelemetry search) {
+        searches++;
+        nodes += search.getNodes();
+        leafEvaluations += search.getLeafEvaluations();
+        cutoffs += search.getCutoffs();
+        firstMoveCutoffs += search.getFirstMoveCutoffs();
+        tableProbes += search.getTableProbes();
+        tableHits += search.getTableHits();
+        if (search.isBookProbed()) {
+            bookProbes++;
+            if (search.getSource() == SearchTelemetry.Source.OPENING_BOOK) {
+                bookHits++;
+            }
+        }
+        depthTotal += search.getDepth();
+        maxDepth = Math.max(maxDepth, search.getDepth());
+        durationNanos += search.getDurationNanos();
+        maxDurationNanos = Math.max(maxDurationNanos, search.getDurationNanos());
+    }
+
+    public long getSearches() {
+        return searches;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getLeafEvaluations() {
+        return leafEvaluations;
+    }
+
+    public double getCutoffRate() {
+        return nodes == 0 ? 0.0 : (double) cutoffs / nodes;
+    }
+
+    public double getFirstMoveCutoffRate() {
+        return cutoffs == 0 ? 0.0 : (double) firstMoveCutoffs / cutoffs;
+    }
+
+    public double getTableHitRate() {
+        return tableProbes == 0 ? 0.0 : (double) tableHits / tableProbes;
+    }
+
+    public double getBookHitRate() {
+        return bookProbes == 0 ? 0.0 : (double) bookHits / bookProbes;
+    }
+
+    public double getAverageDepth() {
+        return searches == 0 ? 0.0 : (double) depthTotal / searches;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public double getAverageTimeMs() {
+        return searches == 0 ? 0.0 : durationNanos / 1e6 / searches;
+    }
+
+    public double getMaxTimeMs() {
+        return maxDurationNanos / 1e6;
+    }
+
+    public double getNodesPerSecond() {
+        return durationNanos == 0 ? 0.0 : nodes * 1e9 / durationNanos;
+    }
+}
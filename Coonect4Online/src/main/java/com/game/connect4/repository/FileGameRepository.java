@@ -0,0 +1,162 @@
+package com.game.connect4.repository;
+
+import com.game.connect4.config.SessionProperties;
+import com.game.connect4.model.Game;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+
+// The in-memory store backed by a journal, so games survive a restart. Changes are only noted on
+// the request thread; every journal-flush-ms the changed games are encoded and appended in one
+// batch (write-behind), so a game moved several times in between costs one record. At startup the
+// journal is read back and the games are rebuilt by replaying their moves in parallel.
+@Repository
+@ConditionalOnProperty(prefix = "connect4.sessions", name = "store", havingValue = "file")
+public class FileGameRepository extends InMemoryGameRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(FileGameRepository.class);
+
+    private final GameJournal journal;
+    private final int maxSegments;
+
+    // Games waiting to be written: true to write a snapshot, false to record a delete
+    private final Map<String, Boolean> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    public FileGameRepository(SessionProperties properties, MeterRegistry meterRegistry) throws IOException {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    FileGameRepository(SessionProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock)
+            throws IOException {
+        super(properties, meterRegistry, nanoClock);
+        this.journal = new GameJournal(Path.of(properties.getJournalDir()), properties.getJournalSegmentBytes());
+        this.maxSegments = properties.getJournalMaxSegments();
+        restore();
+    }
+
+
+    private void restore() throws IOException {
+        long start = System.nanoTime();
+        Map<String, byte[]> snapshots = journal.readAll();
+
+        List<Game> games = snapshots.values().parallelStream()
+                .map(GameRecords::restore)
+                .filter(Objects::nonNull)
+                .toList();
+        games.forEach(super::save);
+
+        // Start from one compact segment rather than the history that led to it
+        journal.compact(snapshotLiveGames());
+        log.info("Restored {} of {} journaled games in {} ms", games.size(), snapshots.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+
+    @Override
+    public void save(Game game) {
+        super.save(game);
+        pending.put(game.getId(), Boolean.TRUE);
+    }
+
+
+    @Override
+    public void update(Game game) {
+        pending.put(game.getId(), Boolean.TRUE);
+    }
+
+
+    @Override
+    public void delete(String gameId) {
+        super.delete(gameId);
+        pending.put(gameId, Boolean.FALSE);
+    }
+
+
+    @Override
+    protected void onEvicted(String gameId) {
+        pending.put(gameId, Boolean.FALSE);
+    }
+
+
+    @Scheduled(fixedDelayString = "${connect4.sessions.journal-flush-ms:200}")
+    public void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            log.error("Could not write to the game journal, will retry", e);
+        }
+    }
+
+
+    synchronized void flush() throws IOException {
+        List<String> gameIds = new ArrayList<>();
+        List<Boolean> writes = new ArrayList<>();
+        List<byte[]> records = new ArrayList<>();
+
+        for (String gameId : pending.keySet()) {
+            Boolean write = pending.remove(gameId);
+            if (write == null) {
+                continue;
+            }
+            // A game evicted since it changed is recorded as deleted
+            byte[] record = write ? inspect(gameId, GameRecords::snapshot) : null;
+            records.add(record != null ? record : GameRecords.delete(gameId));
+            gameIds.add(gameId);
+            writes.add(write);
+        }
+        if (records.isEmpty()) {
+            return;
+        }
+
+        try {
+            journal.append(records);
+        } catch (IOException e) {
+            // Put the games back, unless they have changed again meanwhile
+            for (int i = 0; i < gameIds.size(); i++) {
+                pending.putIfAbsent(gameIds.get(i), writes.get(i));
+            }
+            throw e;
+        }
+
+        if (journal.segmentCount() > maxSegments) {
+            journal.compact(snapshotLiveGames());
+        }
+    }
+
+
+    // Runs after the web server has finished its in-flight requests (server.shutdown=graceful),
+    // so every move that was answered is on disk before the process exits
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        flush();
+        journal.close();
+    }
+
+
+    private List<byte[]> snapshotLiveGames() {
+        List<byte[]> snapshots = new ArrayList<>();
+        for (String gameId : gameIds()) {
+            byte[] snapshot = inspect(gameId, GameRecords::snapshot);
+            if (snapshot != null) {
+                snapshots.add(snapshot);
+            }
+        }
+        return snapshots;
+    }
+}
@@ -0,0 +1,160 @@
+package com.game.connect4.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+
+// Append-only game records split over numbered segment files. A later record for a game replaces
+// an earlier one, so reading the segments in order gives every game's latest state. Compaction
+// writes the live games into one new segment and removes the segments before it.
+// Not thread-safe; FileGameRepository uses it from its writer thread only.
+class GameJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(GameJournal.class);
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("journal-(\\d+)\\.log");
+
+    private final Path directory;
+    private final long segmentBytes;
+    private FileChannel segment;
+    private long lastSegmentNumber;
+
+    GameJournal(Path directory, long segmentBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+        List<Long> segments = segmentNumbers();
+        this.lastSegmentNumber = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+    }
+
+
+    // Latest snapshot of every game that has not been deleted, by game id
+    Map<String, byte[]> readAll() throws IOException {
+        Map<String, byte[]> snapshots = new HashMap<>();
+        for (long number : segmentNumbers()) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segmentPath(number)));
+            while (buffer.hasRemaining()) {
+                byte[] record;
+                try {
+                    record = GameRecords.read(buffer);
+                } catch (BufferUnderflowException | IllegalStateException e) {
+                    // A write cut short by a crash; nothing after it was acknowledged
+                    log.warn("Journal segment {} ends in a partial record at byte {}", number, buffer.position());
+                    break;
+                }
+
+                if (GameRecords.isDelete(record)) {
+                    snapshots.remove(GameRecords.gameId(record));
+                } else {
+                    snapshots.put(GameRecords.gameId(record), record);
+                }
+            }
+        }
+        return snapshots;
+    }
+
+
+    // Writes the records with one system call and forces them to disk before returning
+    void append(List<byte[]> records) throws IOException {
+        if (segment == null) {
+            segment = FileChannel.open(segmentPath(++lastSegmentNumber),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+
+        ByteBuffer[] buffers = records.stream().map(ByteBuffer::wrap).toArray(ByteBuffer[]::new);
+        long remaining = records.stream().mapToLong(record -> record.length).sum();
+        while (remaining > 0) {
+            remaining -= segment.write(buffers);
+        }
+        segment.force(false);
+
+        if (segment.size() >= segmentBytes) {
+            closeSegment();
+        }
+    }
+
+
+    // Replaces every segment with one holding just the given snapshots. The new segment is
+    // written under a temporary name first, so a crash part way leaves the old segments intact.
+    void compact(Collection<byte[]> snapshots) throws IOException {
+        closeSegment();
+        long number = ++lastSegmentNumber;
+        Path target = segmentPath(number);
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (byte[] snapshot : snapshots) {
+                ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+
+        for (long older : segmentNumbers()) {
+            if (older < number) {
+                Files.delete(segmentPath(older));
+            }
+        }
+        log.debug("Compacted the journal to {} games in segment {}", snapshots.size(), number);
+    }
+
+
+    int segmentCount() throws IOException {
+        return segmentNumbers().size();
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        closeSegment();
+    }
+
+
+    private void closeSegment() throws IOException {
+        if (segment != null) {
+            segment.close();
+            segment = null;
+        }
+    }
+
+
+    private List<Long> segmentNumbers() throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    numbers.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("journal-%08d.log", number));
+    }
+}
@@ -0,0 +1,127 @@
+package com.game.connect4.repository;
+
+import com.game.connect4.model.Game;
+import com.game.connect4.model.GameStatus;
+import com.game.connect4.model.Move;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.UUID;
+
+
+// Journal records. A snapshot holds a game's id, level, status and the columns played, two to a
+// byte, which is at most 41 bytes; the board, the side to move and the status are rebuilt by
+// replaying the columns. Analysis text is not kept.
+//
+//   snapshot: type, id (16 bytes), difficulty, status, move count, packed columns
+//   delete:   type, id (16 bytes)
+final class GameRecords {
+
+    static final byte SNAPSHOT = 1;
+    static final byte DELETE = 2;
+
+    private static final int ID_BYTES = 16;
+    private static final int SNAPSHOT_HEADER_BYTES = 1 + ID_BYTES + 3;
+
+    private GameRecords() {
+    }
+
+
+    static byte[] snapshot(Game game) {
+        List<Move> moves = game.getBoard().getMoveHistory();
+        int moveCount = moves.size();
+        ByteBuffer buffer = ByteBuffer.allocate(SNAPSHOT_HEADER_BYTES + (moveCount + 1) / 2);
+
+        buffer.put(SNAPSHOT);
+        putId(buffer, game.getId());
+        buffer.put((byte) game.getDifficultyLevel());
+        buffer.put((byte) game.getStatus().ordinal());
+        buffer.put((byte) moveCount);
+        for (int i = 0; i < moveCount; i += 2) {
+            int first = moves.get(i).getColumn();
+            int second = i + 1 < moveCount ? moves.get(i + 1).getColumn() : 0;
+            buffer.put((byte) (first | second << 4));
+        }
+        return buffer.array();
+    }
+
+
+    static byte[] delete(String gameId) {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + ID_BYTES);
+        buffer.put(DELETE);
+        putId(buffer, gameId);
+        return buffer.array();
+    }
+
+
+    // Reads the record at the buffer's position and leaves the position after it. Throws
+    // BufferUnderflowException for a record cut short by a crash.
+    static byte[] read(ByteBuffer buffer) {
+        int start = buffer.position();
+        byte type = buffer.get();
+        int length;
+        if (type == SNAPSHOT) {
+            if (buffer.limit() - start < SNAPSHOT_HEADER_BYTES) {
+                throw new BufferUnderflowException();
+            }
+            int moveCount = buffer.get(start + SNAPSHOT_HEADER_BYTES - 1) & 0xFF;
+            length = SNAPSHOT_HEADER_BYTES + (moveCount + 1) / 2;
+        } else if (type == DELETE) {
+            length = 1 + ID_BYTES;
+        } else {
+            throw new IllegalStateException("Unknown journal record type " + type + " at " + start);
+        }
+
+        byte[] record = new byte[length];
+        buffer.position(start);
+        buffer.get(record);
+        return record;
+    }
+
+
+    static boolean isDelete(byte[] record) {
+        return record[0] == DELETE;
+    }
+
+
+    static String gameId(byte[] record) {
+        ByteBuffer buffer = ByteBuffer.wrap(record, 1, ID_BYTES);
+        return new UUID(buffer.getLong(), buffer.getLong()).toString();
+    }
+
+
+    // Replays the columns onto a fresh game; returns null if the result does not match the
+    // stored status, which means the record is not a game this version can rebuild
+    static Game restore(byte[] record) {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        buffer.position(1 + ID_BYTES);
+        int difficultyLevel = buffer.get();
+        int statusOrdinal = buffer.get();
+        int moveCount = buffer.get() & 0xFF;
+
+        Game game = new Game(gameId(record), difficultyLevel);
+        for (int i = 0; i < moveCount; i += 2) {
+            int packed = buffer.get();
+            if (game.makeMove(packed & 0x0F) == -1) {
+                return null;
+            }
+            if (i + 1 < moveCount && game.makeMove(packed >> 4 & 0x0F) == -1) {
+                return null;
+            }
+        }
+
+        GameStatus[] statuses = GameStatus.values();
+        if (statusOrdinal < 0 || statusOrdinal >= statuses.length || game.getStatus() != statuses[statusOrdinal]) {
+            return null;
+        }
+        return game;
+    }
+
+
+    private static void putId(ByteBuffer buffer, String gameId) {
+        UUID id = UUID.fromString(gameId);
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+    }
+}
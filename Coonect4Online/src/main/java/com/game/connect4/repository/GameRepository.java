@@ -0,0 +1,25 @@
+package com.game.connect4.repository;
+
+import com.game.connect4.model.Game;
+
+import java.util.function.Function;
+
+
+public interface GameRepository {
+
+    void save(Game game);
+
+    // Returns null when there is no such game (or it has been evicted)
+    Game findById(String gameId);
+
+    // Runs action on the game while holding that game's lock, so requests for one game run one
+    // at a time while other games proceed; returns null when there is no such game
+    <T> T withLock(String gameId, Function<Game, T> action);
+
+    // Called after a game has changed, while its lock is held
+    void update(Game game);
+
+    void delete(String gameId);
+
+    int size();
+}
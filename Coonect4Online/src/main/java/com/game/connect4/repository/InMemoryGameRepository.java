@@ -0,0 +1,248 @@
+package com.game.connect4.repository;
+
+import com.game.connect4.config.SessionProperties;
+import com.game.connect4.model.Game;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+
+// Games held in memory, each with its own lock and last-access time. Games idle for longer than
+// the configured timeout are swept out periodically, and the least recently used ones go as soon
+// as the store grows past its size limit. A game whose lock is held is never evicted.
+@Repository
+@ConditionalOnProperty(prefix = "connect4.sessions", name = "store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryGameRepository implements GameRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryGameRepository.class);
+
+    // Rough heap cost of a game: the fixed part (game, board, bitboards, window counts) plus the
+    // move history and the analysis log, which grow with every move
+    private static final long FIXED_GAME_BYTES = 1200;
+    private static final long BYTES_PER_MOVE = 40;
+    private static final long BYTES_PER_ANALYSIS = 56;
+
+    // Games sampled for the bytes-per-game gauge
+    private static final int SIZE_SAMPLE = 256;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SessionProperties properties;
+    private final LongSupplier nanoClock;
+    private final Counter idleEvictions;
+    private final Counter capacityEvictions;
+
+    @Autowired
+    public InMemoryGameRepository(SessionProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    InMemoryGameRepository(SessionProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+
+        Gauge.builder("connect4.sessions.live", sessions, Map::size)
+                .description("Games currently held in memory")
+                .register(meterRegistry);
+        Gauge.builder("connect4.sessions.bytes.per.game", this, InMemoryGameRepository::averageBytesPerGame)
+                .description("Estimated heap per game, averaged over a sample of live games")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        idleEvictions = Counter.builder("connect4.sessions.evicted")
+                .tag("reason", "idle")
+                .register(meterRegistry);
+        capacityEvictions = Counter.builder("connect4.sessions.evicted")
+                .tag("reason", "capacity")
+                .register(meterRegistry);
+    }
+
+
+    @Override
+    public void save(Game game) {
+        sessions.put(game.getId(), new Session(game, nanoClock.getAsLong()));
+
+        // Free an extra 1% at once so a full store does not sort its sessions on every new game
+        int excess = sessions.size() - properties.getMaxSessions();
+        if (excess > 0) {
+            evictLeastRecentlyUsed(excess + properties.getMaxSessions() / 100);
+        }
+    }
+
+
+    @Override
+    public Game findById(String gameId) {
+        Session session = sessions.get(gameId);
+        if (session == null) {
+            return null;
+        }
+        session.lastAccessNanos = nanoClock.getAsLong();
+        return session.game;
+    }
+
+
+    @Override
+    public <T> T withLock(String gameId, Function<Game, T> action) {
+        return withLock(gameId, action, true);
+    }
+
+
+    // Same as withLock, but does not count as an access, so it keeps no game from going idle
+    <T> T inspect(String gameId, Function<Game, T> action) {
+        return withLock(gameId, action, false);
+    }
+
+
+    private <T> T withLock(String gameId, Function<Game, T> action, boolean access) {
+        Session session = sessions.get(gameId);
+        if (session == null) {
+            return null;
+        }
+
+        session.lock.lock();
+        try {
+            // Evicted while this request waited for the lock
+            if (sessions.get(gameId) != session) {
+                return null;
+            }
+            if (access) {
+                session.lastAccessNanos = nanoClock.getAsLong();
+            }
+            return action.apply(session.game);
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+
+    @Override
+    public void update(Game game) {
+        // Nothing to do; the game object itself is what is stored
+    }
+
+
+    @Override
+    public void delete(String gameId) {
+        sessions.remove(gameId);
+    }
+
+    @Override
+    public int size() {
+        return sessions.size();
+    }
+
+    List<String> gameIds() {
+        return new ArrayList<>(sessions.keySet());
+    }
+
+
+    // Called once a game has been evicted
+    protected void onEvicted(String gameId) {
+    }
+
+
+    @Scheduled(fixedDelayString = "${connect4.sessions.sweep-interval-ms:60000}")
+    public void evictIdleSessions() {
+        long cutoff = nanoClock.getAsLong() - properties.getIdleTimeoutMs() * 1_000_000L;
+        int evicted = 0;
+
+        for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+            Session session = entry.getValue();
+            if (session.lastAccessNanos - cutoff < 0 && evict(entry.getKey(), session)) {
+                evicted++;
+            }
+        }
+
+        if (evicted > 0) {
+            idleEvictions.increment(evicted);
+            log.info("Evicted {} idle games, {} left", evicted, sessions.size());
+        }
+    }
+
+
+    private void evictLeastRecentlyUsed(int count) {
+        List<Map.Entry<String, Session>> entries = new ArrayList<>(sessions.entrySet());
+        entries.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccessNanos));
+
+        int evicted = 0;
+        for (int i = 0; i < entries.size() && evicted < count; i++) {
+            if (evict(entries.get(i).getKey(), entries.get(i).getValue())) {
+                evicted++;
+            }
+        }
+
+        capacityEvictions.increment(evicted);
+        log.debug("Evicted {} least recently used games to stay within {}", evicted, properties.getMaxSessions());
+    }
+
+
+    // Skips games that are in use; they are idle again soon enough for the next sweep
+    private boolean evict(String gameId, Session session) {
+        if (!session.lock.tryLock()) {
+            return false;
+        }
+        try {
+            if (!sessions.remove(gameId, session)) {
+                return false;
+            }
+        } finally {
+            session.lock.unlock();
+        }
+        onEvicted(gameId);
+        return true;
+    }
+
+
+    private double averageBytesPerGame() {
+        long totalBytes = 0;
+        int sampled = 0;
+        for (Session session : sessions.values()) {
+            // Games being played right now are skipped rather than read mid-move
+            if (!session.lock.tryLock()) {
+                continue;
+            }
+            try {
+                totalBytes += estimateBytes(session.game);
+            } finally {
+                session.lock.unlock();
+            }
+            if (++sampled == SIZE_SAMPLE) {
+                break;
+            }
+        }
+        return sampled == 0 ? 0 : (double) totalBytes / sampled;
+    }
+
+    private static long estimateBytes(Game game) {
+        long bytes = FIXED_GAME_BYTES + BYTES_PER_MOVE * game.getBoard().getMoveHistory().size();
+        for (String analysis : game.getGameAnalysis()) {
+            bytes += BYTES_PER_ANALYSIS + analysis.length();
+        }
+        return bytes;
+    }
+
+
+    private static class Session {
+        private final Game game;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile long lastAccessNanos;
+
+        Session(Game game, long lastAccessNanos) {
+            this.game = game;
+            this.lastAccessNanos = lastAccessNanos;
+        }
+    }
+}
@@ -1,24 +1,263 @@
 package com.game.connect4.service;
 
+import com.game.connect4.ai.Bitboards;
+import com.game.connect4.ai.Evaluator;
+import com.game.connect4.ai.HeuristicEvaluator;
+import com.game.connect4.ai.MonteCarloEngine;
+import com.game.connect4.ai.NTupleNetwork;
+import com.game.connect4.ai.OpeningBook;
+import com.game.connect4.ai.PositionCache;
+import com.game.connect4.ai.SearchAbortedException;
+import com.game.connect4.ai.SearchContext;
+import com.game.connect4.ai.SearchEngine;
+import com.game.connect4.ai.SearchStatistics;
+import com.game.connect4.ai.Solver;
+import com.game.connect4.ai.Tactics;
+import com.game.connect4.ai.TranspositionTable;
+import com.game.connect4.config.AIProperties;
 import com.game.connect4.model.Board;
 import com.game.connect4.model.Game;
 import com.game.connect4.model.GameStatus;
 import com.game.connect4.model.Move;
 import com.game.connect4.model.Player;
+import com.game.connect4.model.SearchResult;
+import com.game.connect4.model.SearchTelemetry;
 import com.game.connect4.utils.Constants;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 @Service
 public class AIService {
 
+    private static final Logger log = LoggerFactory.getLogger(AIService.class);
+
+    // Returned by evaluateTerminal when the position is neither won nor drawn
+    private static final int NOT_TERMINAL = Integer.MIN_VALUE;
+
+    // Larger than any score, but small enough that negating window bounds cannot overflow
+    private static final int INFINITY = 1_000_000_000;
+
+    // Scores at least this far out are proven wins or losses, adjusted by how many plies away they are
+    private static final int PROVEN_SCORE = Constants.WIN_SCORE - 100;
+
+    // Aspiration windows start at this half-width and grow fourfold on every fail high or low,
+    // falling back to the full window once they reach the limit
+    private static final int ASPIRATION_MIN_DEPTH = 3;
+    private static final int ASPIRATION_WINDOW = 25;
+    private static final int ASPIRATION_LIMIT = 1600;
+
+    // Deadline for callers that only want the per-level time budgets
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+
+    private final AIProperties properties;
+    private final TranspositionTable transpositionTable;
+    private final TranspositionTable solverTable;
+    private final PositionCache positionCache;
+    private final PositionCache reviewCache;
+    private final Evaluator evaluator;
+    private final OpeningBook openingBook;
+    private final ForkJoinPool searchPool;
+    private final MonteCarloEngine monteCarloEngine;
+    private final SearchTelemetryService telemetry;
+    private final SearchBudgetScheduler scheduler;
+
+    private final LongAdder totalSearches = new LongAdder();
+    private final LongAdder totalNodes = new LongAdder();
+    private final LongAdder totalCutoffs = new LongAdder();
+    private final LongAdder totalFirstMoveCutoffs = new LongAdder();
+    private final LongAdder totalLeafEvaluations = new LongAdder();
+    private final LongAdder totalTableProbes = new LongAdder();
+    private final LongAdder totalTableHits = new LongAdder();
+    private final LongAdder totalLastIterationNodes = new LongAdder();
+    private final LongAdder totalPreviousIterationNodes = new LongAdder();
+
+    public AIService(AIProperties properties) {
+        this(properties, SearchTelemetryService.disabled());
+    }
+
+    public AIService(AIProperties properties, SearchTelemetryService telemetry) {
+        this(properties, telemetry, SearchBudgetScheduler.unscheduled());
+    }
+
+    @Autowired
+    public AIService(AIProperties properties, SearchTelemetryService telemetry, SearchBudgetScheduler scheduler) {
+        this.properties = properties;
+        this.telemetry = telemetry;
+        this.scheduler = scheduler;
+        this.transpositionTable = new TranspositionTable(properties.getTranspositionTableMb());
+        this.solverTable = new TranspositionTable(properties.getSolverTableMb());
+        this.positionCache = new PositionCache(properties.getPositionCacheMb());
+        this.reviewCache = new PositionCache(properties.getReviewPositionCacheMb());
+        this.evaluator = createEvaluator(properties);
+        this.openingBook = properties.getOpeningBook().isBlank()
+                ? null : new OpeningBook(Path.of(properties.getOpeningBook()));
+        this.searchPool = properties.getSearchThreads() > 1 ? new ForkJoinPool(properties.getSearchThreads()) : null;
+        this.monteCarloEngine = new MonteCarloEngine(searchPool, properties.getMonteCarloPlayouts(),
+                properties.getMonteCarloTrees(), properties.getMonteCarloTreeNodes());
+        telemetry.monitor(positionCache);
+    }
+
+
+    private static Evaluator createEvaluator(AIProperties properties) {
+        return switch (properties.getEvaluator()) {
+            case "heuristic" -> new HeuristicEvaluator();
+            case "ntuple" -> properties.getNtupleWeights().isBlank()
+                    ? NTupleNetwork.bundled() : readNetwork(Path.of(properties.getNtupleWeights()));
+            default -> throw new IllegalArgumentException("Unknown evaluator: " + properties.getEvaluator());
+        };
+    }
+
+
+    private static NTupleNetwork readNetwork(Path path) {
+        try {
+            return NTupleNetwork.read(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    @PreDestroy
+    public void shutdown() {
+        if (searchPool != null) {
+            searchPool.shutdownNow();
+        }
+    }
+
 
     public Move findBestMove(Game game) {
-        Board board = game.getBoard();
-        int depth = game.getDifficultyLevel();
+        return findBestMove(game, NO_DEADLINE);
+    }
+
+
+    // deadlineNanos (System.nanoTime) caps the search below its usual budget, for requests with a
+    // time limit of their own; the move is the best one found by then
+    public Move findBestMove(Game game, long deadlineNanos) {
+        SearchResult result = analyzePosition(game, deadlineNanos);
+        if (result == null) {
+            return null;
+        }
+        return new Move(result.getBestColumn(), result.getBestScore());
+    }
+
 
+    // Searches the position for the side to move. The result is kept on the game, so grading the
+    // player's move and choosing the AI's reply to it share one search; both need only the best
+    // column and its score, so only those are exact. Null when the board is full.
+    public SearchResult analyzePosition(Game game) {
+        return analyzePosition(game, NO_DEADLINE);
+    }
+
+
+    public SearchResult analyzePosition(Game game, long deadlineNanos) {
+        SearchResult cached = game.getLastSearch();
+        if (cached != null && cached.matches(game.getBoard(), game.getDifficultyLevel())) {
+            return cached;
+        }
+
+        // Pondering may already have searched the move the player made
+        SearchResult pondered = game.getPonderedResult(game.getBoard().getHash());
+        if (pondered != null && pondered.matches(game.getBoard(), game.getDifficultyLevel())) {
+            game.setLastSearch(pondered);
+            return pondered;
+        }
+
+        SearchResult result = search(new Board(game.getBoard()), game.getDifficultyLevel(), game.getCurrentPlayer(),
+                game.getId(), true, new AtomicBoolean(), deadlineNanos);
+        game.setLastSearch(result);
+        return result;
+    }
 
+
+    // For background searches: stays off the parallel pool and throws SearchAbortedException as
+    // soon as cancelled is set
+    public SearchResult searchCancellable(Board board, int difficultyLevel, Player player, String gameId,
+                                          AtomicBoolean cancelled) {
+        return search(new Board(board), difficultyLevel, player, gameId, false, cancelled, NO_DEADLINE);
+    }
+
+
+    // True while move searches get less than their usual time budget
+    public boolean isUnderLoad() {
+        return scheduler.isUnderLoad();
+    }
+
+
+    // Searches board in place, so callers pass a copy; an aborted iteration may leave moves on it.
+    // Background searches are the ones without allowParallel; a cancelled one records no telemetry.
+    // Move searches take a lease from the scheduler, which shortens their budgets under load.
+    private SearchResult search(Board board, int difficultyLevel, Player player, String gameId,
+                                boolean allowParallel, AtomicBoolean cancelled, long deadlineNanos) {
+        if (!allowParallel) {
+            return search(board, difficultyLevel, player, gameId, false, cancelled, deadlineNanos, 1.0);
+        }
+        try (SearchBudgetScheduler.Lease lease = scheduler.acquire()) {
+            return search(board, difficultyLevel, player, gameId, true, cancelled, deadlineNanos,
+                    lease.getBudgetScale());
+        }
+    }
+
+
+    // Another engine for the levels that do not use the minimax search below; null for the rest
+    private SearchEngine engineFor(int difficultyLevel) {
+        return difficultyLevel == Constants.MONTE_CARLO ? monteCarloEngine : null;
+    }
+
+
+    private SearchResult search(Board board, int difficultyLevel, Player player, String gameId,
+                                boolean allowParallel, AtomicBoolean cancelled, long deadlineNanos,
+                                double budgetScale) {
+        long startNanos = System.nanoTime();
+        SearchTelemetry trace = new SearchTelemetry(gameId, difficultyLevel, board.getMoveCount(), !allowParallel);
+        trace.setBudgetScale(budgetScale);
+        SearchResult result = search(board, difficultyLevel, player, gameId, allowParallel, cancelled, deadlineNanos,
+                budgetScale, trace);
+        if (result != null) {
+            SearchTelemetry.Source source = trace.getSource();
+            boolean timed = source == SearchTelemetry.Source.SEARCH || source == SearchTelemetry.Source.MONTE_CARLO;
+            if (timed && budgetScale < 1.0) {
+                result = result.withBudgetScale(budgetScale);
+            }
+            // Searches cut short by load or by the move's deadline are not shared, so a busy spell
+            // does not weaken later games; the solver's answers are exact however long it had
+            boolean shortened = timed && (budgetScale < 1.0 || trace.isDeadlineClipped());
+            if (!shortened && (timed || source == SearchTelemetry.Source.SOLVER) && !cancelled.get()) {
+                positionCache.put(result);
+            }
+        }
+        if (result != null && telemetry.isEnabled()) {
+            // The solver searches to the end of the game
+            int depth = trace.getSource() == SearchTelemetry.Source.SOLVER
+                    ? Constants.ROWS * Constants.COLUMNS - trace.getPly() : result.getDepth();
+            trace.finish(depth, System.nanoTime() - startNanos);
+            telemetry.record(trace);
+        }
+        return result;
+    }
+
+
+    private SearchResult search(Board board, int difficultyLevel, Player player, String gameId,
+                                boolean allowParallel, AtomicBoolean cancelled, long deadlineNanos,
+                                double budgetScale, SearchTelemetry trace) {
         List<Integer> validMoves = board.getValidMoves();
         if (validMoves.isEmpty()) {
             return null;
@@ -26,131 +265,661 @@ public class AIService {
 
 
         if (validMoves.size() == 1) {
-            return new Move(validMoves.get(0));
+            trace.setSource(SearchTelemetry.Source.SINGLE_MOVE);
+            return singleColumnResult(board, difficultyLevel, validMoves.get(0), 0);
         }
 
-        int bestScore = Integer.MIN_VALUE;
-        int bestColumn = validMoves.get(0);
+        SearchResult tactical = findTacticalMove(board, difficultyLevel, player);
+        if (tactical != null) {
+            trace.setSource(SearchTelemetry.Source.TACTICS);
+            return tactical;
+        }
 
+        // Another game may already have searched this position at this level
+        SearchResult cached = positionCache.get(board, difficultyLevel);
+        if (cached != null) {
+            trace.setSource(SearchTelemetry.Source.POSITION_CACHE);
+            return cached;
+        }
 
-        for (int column : validMoves) {
+        SearchEngine engine = engineFor(difficultyLevel);
+        if (engine != null) {
+            trace.setSource(SearchTelemetry.Source.MONTE_CARLO);
+            SearchContext context = new SearchContext(
+                    budgetUntil(scale(properties.getTimeBudgetMs(difficultyLevel), budgetScale), deadlineNanos,
+                            trace),
+                    cancelled);
+            SearchResult result = engine.search(board, difficultyLevel, player, gameId, allowParallel, context);
+            recordStatistics(context);
+            trace.addStatistics(context.getStatistics());
+            return result;
+        }
 
-            int row = board.makeMove(column, Player.AI);
+        // Expert and up play book moves; lower levels search the opening as before
+        if (openingBook != null && difficultyLevel > Constants.HARD) {
+            trace.setBookProbed(true);
+            SearchResult bookResult = findBookMove(board, difficultyLevel, player);
+            if (bookResult != null) {
+                trace.setSource(SearchTelemetry.Source.OPENING_BOOK);
+                return bookResult;
+            }
+        }
 
+        if (difficultyLevel == Constants.UNBEATABLE) {
+            SearchResult solved = solveBestMove(board, difficultyLevel, player, cancelled, deadlineNanos, budgetScale,
+                    trace);
+            if (solved != null) {
+                trace.setSource(SearchTelemetry.Source.SOLVER);
+                return solved;
+            }
+        }
 
-            int score;
+        SearchContext context = new SearchContext(
+                budgetUntil(scale(properties.getTimeBudgetMs(difficultyLevel), budgetScale), deadlineNanos, trace),
+                cancelled);
+        int maxDepth = getMaxDepth(board, difficultyLevel);
+        boolean parallel = allowParallel && searchPool != null && difficultyLevel > Constants.HARD;
+
+        // A move needs only the best column; reviewPosition is the one caller that scores them all
+        SearchResult result = iterativeDeepening(board, difficultyLevel, player, maxDepth, parallel, false, context,
+                null);
+
+        recordStatistics(context);
+        trace.addStatistics(context.getStatistics());
+        return result;
+    }
+
+
+    // Share of a budget, at least a millisecond
+    private static long scale(long budgetMillis, double budgetScale) {
+        return Math.max(1, Math.round(budgetMillis * budgetScale));
+    }
+
+
+    // The budget, shortened to what is left before the deadline (at least a millisecond); the
+    // trace notes when the deadline did the shortening
+    private static long budgetUntil(long budgetMillis, long deadlineNanos, SearchTelemetry trace) {
+        if (deadlineNanos == NO_DEADLINE) {
+            return budgetMillis;
+        }
+        long remainingMillis = (deadlineNanos - System.nanoTime()) / 1_000_000L;
+        if (remainingMillis < budgetMillis) {
+            trace.setDeadlineClipped(true);
+        }
+        return Math.max(1, Math.min(budgetMillis, remainingMillis));
+    }
+
+
+    // For results that only score the chosen column
+    private static SearchResult singleColumnResult(Board board, int difficultyLevel, int column, int score) {
+        int[] columnScores = new int[Constants.COLUMNS];
+        Arrays.fill(columnScores, SearchResult.NO_SCORE);
+        columnScores[column] = score;
+        return new SearchResult(board, difficultyLevel, column, score, columnScores, 0);
+    }
+
+
+    // Settles the move without a search when threats alone decide it: a win on the spot, the
+    // only move that does not lose on the spot, or a double threat. Every level plays these, so
+    // even Easy never misses a win in one or a block. Returns null when the position needs a search.
+    private static SearchResult findTacticalMove(Board board, int difficultyLevel, Player player) {
+        long position = board.getBitboard(player);
+        long mask = position | board.getBitboard(player.getOpponent());
+
+        long wins = Tactics.winningMoves(position, mask);
+        if (wins != 0) {
+            return singleColumnResult(board, difficultyLevel, Tactics.firstColumn(wins), Constants.WIN_SCORE);
+        }
+
+        long nonLosing = Tactics.nonLosingMoves(position, mask);
+        if (nonLosing == 0) {
+            // Lost either way; block one of the threats in case the opponent misses the other
+            long blocks = Tactics.winningMoves(position ^ mask, mask);
+            long cells = blocks != 0 ? blocks : Bitboards.playableCells(mask);
+            return singleColumnResult(board, difficultyLevel, Tactics.firstColumn(cells), -Constants.WIN_SCORE);
+        }
+        if (Long.bitCount(nonLosing) == 1) {
+            return singleColumnResult(board, difficultyLevel, Tactics.firstColumn(nonLosing), 0);
+        }
+
+        long doubleThreats = Tactics.doubleThreatMoves(position, mask, nonLosing);
+        if (doubleThreats != 0) {
+            return singleColumnResult(board, difficultyLevel, Tactics.firstColumn(doubleThreats),
+                    Constants.WIN_SCORE);
+        }
+        return null;
+    }
+
+
+    private SearchResult findBookMove(Board board, int difficultyLevel, Player player) {
+        long position = board.getBitboard(player);
+        long mask = position | board.getBitboard(player.getOpponent());
+        long record = openingBook.probe(position, mask);
+        if (record == 0 || !Bitboards.canPlay(mask, OpeningBook.column(record))) {
+            return null;
+        }
+        return singleColumnResult(board, difficultyLevel, OpeningBook.column(record),
+                toEngineScore(OpeningBook.score(record)));
+    }
+
+
+    // Plays the column with the best proven outcome, or returns null when the solver runs out of time
+    private SearchResult solveBestMove(Board board, int difficultyLevel, Player player, AtomicBoolean cancelled,
+                                       long deadlineNanos, double budgetScale, SearchTelemetry trace) {
+        long position = board.getBitboard(player);
+        long mask = position | board.getBitboard(player.getOpponent());
+        int moveCount = board.getMoveCount();
+
+        SearchContext context = new SearchContext(
+                budgetUntil(scale(properties.getSolverTimeBudgetMs(), budgetScale), deadlineNanos, trace), cancelled);
+        context.armDeadline();
+        Solver solver = new Solver(solverTable, context);
+
+        try {
+            int score = solver.solve(position, mask, moveCount);
+            int column = solver.findColumn(position, mask, moveCount, score);
+            log.debug("Solver proved score {} ({} plies to the end) in {} nodes",
+                    score, Solver.pliesToEnd(score, moveCount), context.getNodes());
+            return singleColumnResult(board, difficultyLevel, column, toEngineScore(score));
+        } catch (SearchAbortedException e) {
+            log.debug("Solver gave up after {} nodes, using the Expert search", context.getNodes());
+            return null;
+        } finally {
+            // Solver nodes count toward the node total, but not toward the cutoff and iteration figures
+            totalNodes.add(context.getNodes());
+            trace.addStatistics(context.getStatistics());
+        }
+    }
+
+
+    // Proven wins and losses rank beyond every heuristic score, sooner ones further out
+    private static int toEngineScore(int solverScore) {
+        if (solverScore > 0) {
+            return Constants.WIN_SCORE + solverScore;
+        } else if (solverScore < 0) {
+            return Constants.LOSE_SCORE + solverScore;
+        }
+        return Constants.DRAW_SCORE;
+    }
+
+
+    // Forgets every stored search result, so the next search starts cold; for benchmarks
+    public void clearSearchTables() {
+        transpositionTable.clear();
+        solverTable.clear();
+        positionCache.clear();
+        reviewCache.clear();
+        monteCarloEngine.clear();
+    }
+
+
+    // Totals over every search since startup, for checking how well moves are ordered
+    public SearchStatistics getSearchStatistics() {
+        return new SearchStatistics(totalSearches.sum(), totalNodes.sum(), totalCutoffs.sum(),
+                totalFirstMoveCutoffs.sum(), totalLeafEvaluations.sum(), totalTableProbes.sum(), totalTableHits.sum(),
+                totalLastIterationNodes.sum(), totalPreviousIterationNodes.sum());
+    }
+
+
+    private void recordStatistics(SearchContext context) {
+        SearchStatistics statistics = context.getStatistics();
+        totalSearches.increment();
+        totalNodes.add(statistics.getNodes());
+        totalCutoffs.add(statistics.getCutoffs());
+        totalFirstMoveCutoffs.add(statistics.getFirstMoveCutoffs());
+        totalLeafEvaluations.add(statistics.getLeafEvaluations());
+        totalTableProbes.add(statistics.getTableProbes());
+        totalTableHits.add(statistics.getTableHits());
+        if (statistics.getPreviousIterationNodes() > 0) {
+            totalLastIterationNodes.add(statistics.getLastIterationNodes());
+            totalPreviousIterationNodes.add(statistics.getPreviousIterationNodes());
+        }
+        log.debug("AI search finished: {}", statistics);
+    }
+
+
+    // Fixed-depth search without a deadline, for benchmarks and tests
+    SearchResult searchToDepth(Board board, Player player, int depth, SearchContext context) {
+        return searchToDepth(board, player, depth, false, context);
+    }
+
+
+    // The same, splitting the root columns across the search pool when asked and there is one
+    SearchResult searchToDepth(Board board, Player player, int depth, boolean parallel, SearchContext context) {
+        return iterativeDeepening(new Board(board), 0, player, depth, parallel && searchPool != null, false, context,
+                null);
+    }
+
+
+    // Scores every column at a fixed depth, for game reviews. Safe to call from several threads at
+    // once; results are shared through a cache of their own, keyed by depth in place of a level,
+    // so games with a common opening search it once and reviews never push out the moves'
+    // results. Null when the board is full.
+    public SearchResult reviewPosition(Board board, Player player, int depth) {
+        if (board.getValidMoves().isEmpty()) {
+            return null;
+        }
+        SearchResult cached = reviewCache.get(board, depth);
+        if (cached != null) {
+            return cached;
+        }
+
+        SearchContext context = SearchContext.withoutDeadline();
+        int maxDepth = Math.min(depth, Constants.ROWS * Constants.COLUMNS - board.getMoveCount());
+        SearchResult result = iterativeDeepening(new Board(board), depth, player, maxDepth, false, true,
+                context, null);
+        reviewCache.put(result);
+        return result;
+    }
+
+
+    // Expert-strength search for hints that hands onIteration the result of every completed
+    // depth, starting within milliseconds, until budgetMillis runs out or cancelled is set.
+    // Positions tactics settle get their one result straight away. Stays off the parallel pool and
+    // out of the telemetry and the position cache; onIteration runs on the calling thread.
+    public void searchProgressively(Board board, Player player, long budgetMillis, AtomicBoolean cancelled,
+                                    Consumer<SearchResult> onIteration) {
+        List<Integer> validMoves = board.getValidMoves();
+        if (validMoves.isEmpty()) {
+            return;
+        }
+        if (validMoves.size() == 1) {
+            onIteration.accept(singleColumnResult(board, Constants.EXPERT, validMoves.get(0), 0));
+            return;
+        }
+        SearchResult tactical = findTacticalMove(board, Constants.EXPERT, player);
+        if (tactical != null) {
+            onIteration.accept(tactical);
+            return;
+        }
+
+        SearchContext context = new SearchContext(budgetMillis, cancelled);
+        int maxDepth = getMaxDepth(board, Constants.EXPERT);
+        try {
+            iterativeDeepening(new Board(board), Constants.EXPERT, player, maxDepth, false, false, context,
+                    onIteration);
+        } catch (SearchAbortedException e) {
+            // Cancelled before the first depth was done
+        }
+    }
 
 
-            if (board.checkWin(row, column, Player.AI)) {
-                score = Constants.WIN_SCORE;
+    // With multiPv every root column gets an exact score; otherwise only the best one is searched
+    // exactly, which is cheaper when nothing but the move is needed, and the others are left at
+    // NO_SCORE (apart from columns lost on the spot). onIteration, if not null, gets the result
+    // so far after every completed depth.
+    private SearchResult iterativeDeepening(Board board, int difficultyLevel, Player player, int maxDepth,
+                                            boolean parallel, boolean multiPv, SearchContext context,
+                                            Consumer<SearchResult> onIteration) {
+        // Start from the static center-first order
+        int[] initialOrder = context.getMoveBuffer(board.getMoveCount());
+        int initialCount = context.getMoveOrderer().orderMoves(board, player, TranspositionTable.NO_MOVE, initialOrder);
+        int[] rootScores = new int[Constants.COLUMNS];
+        int[] completedScores = new int[Constants.COLUMNS];
+        Arrays.fill(completedScores, SearchResult.NO_SCORE);
+
+        // Columns that hand the opponent a win on the spot are scored as lost without a search,
+        // unless there is a win to take first or every column loses anyway
+        long position = board.getBitboard(player);
+        long mask = position | board.getBitboard(player.getOpponent());
+        long nonLosing = Tactics.nonLosingMoves(position, mask);
+        boolean prune = nonLosing != 0 && !Tactics.canWinNext(position, mask);
+        List<Integer> rootMoves = new ArrayList<>();
+        for (int i = 0; i < initialCount; i++) {
+            int column = initialOrder[i];
+            if (!prune || (nonLosing & Bitboards.columnMask(column)) != 0) {
+                rootMoves.add(column);
             } else {
+                completedScores[column] = -Constants.WIN_SCORE;
+            }
+        }
+
+        Move bestMove = null;
+        int completedDepth = 0;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            long nodesBefore = context.getNodes();
+            try {
+                bestMove = searchWithAspiration(board, depth, rootMoves, rootScores, player, bestMove, parallel,
+                        multiPv, context);
+            } catch (SearchAbortedException e) {
+                // Only a cancelled search can stop before its first iteration has finished
+                if (bestMove == null) {
+                    throw e;
+                }
+                break;
+            }
+            context.completeIteration(nodesBefore);
+            context.armDeadline();
+            completedDepth = depth;
+            for (int column : rootMoves) {
+                // Without multiPv the other columns only have bounds
+                completedScores[column] = multiPv || column == bestMove.getColumn()
+                        ? rootScores[column] : SearchResult.NO_SCORE;
+            }
+            if (onIteration != null) {
+                onIteration.accept(new SearchResult(board, difficultyLevel, bestMove.getColumn(),
+                        bestMove.getScore(), completedScores.clone(), completedDepth));
+            }
+
+            // A proven win or loss will not change with more depth
+            if (Math.abs(bestMove.getScore()) >= PROVEN_SCORE || context.isTimeUp()) {
+                break;
+            }
+
+            // Search the best columns of this iteration first in the next one
+            rootMoves.sort((a, b) -> Integer.compare(rootScores[b], rootScores[a]));
+        }
+
+        return new SearchResult(board, difficultyLevel, bestMove.getColumn(), bestMove.getScore(),
+                completedScores, completedDepth);
+    }
+
+
+    // Searches a narrow window around the previous iteration's score and widens it whenever the
+    // result falls outside, ending with a full window if the score keeps moving
+    private Move searchWithAspiration(Board board, int depth, List<Integer> rootMoves, int[] rootScores, Player player,
+                                      Move previous, boolean parallel, boolean multiPv, SearchContext context) {
+        // Columns scored below a narrow window would only get bounds, so multi-PV always uses the full one
+        if (multiPv || previous == null || depth < ASPIRATION_MIN_DEPTH
+                || Math.abs(previous.getScore()) >= PROVEN_SCORE) {
+            return searchRoot(board, depth, rootMoves, rootScores, -INFINITY, INFINITY, player, parallel, multiPv, context);
+        }
 
-                score = minimax(board, depth - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+        int delta = ASPIRATION_WINDOW;
+        while (true) {
+            int alpha = delta >= ASPIRATION_LIMIT ? -INFINITY : previous.getScore() - delta;
+            int beta = delta >= ASPIRATION_LIMIT ? INFINITY : previous.getScore() + delta;
+
+            Move result = searchRoot(board, depth, rootMoves, rootScores, alpha, beta, player, parallel, false, context);
+            if (result.getScore() > alpha && result.getScore() < beta) {
+                return result;
             }
+            delta *= 4;
+        }
+    }
+
 
+    private Move searchRoot(Board board, int depth, List<Integer> rootMoves, int[] rootScores, int alpha, int beta,
+                            Player player, boolean parallel, boolean multiPv, SearchContext context) {
+        if (parallel) {
+            return searchRootParallel(board, depth, rootMoves, rootScores, alpha, beta, player, multiPv, context);
+        }
 
-            board.undoMove(column);
+        int bestScore = -INFINITY;
+        int bestColumn = rootMoves.get(0);
 
+        for (int i = 0; i < rootMoves.size(); i++) {
+            int column = rootMoves.get(i);
+            int score = searchRootColumn(board, column, depth, alpha, beta, multiPv || i == 0, player, context);
+            rootScores[column] = score;
 
+            // Strictly greater, so the earliest column in search order wins ties
             if (score > bestScore) {
                 bestScore = score;
                 bestColumn = column;
             }
+            if (!multiPv) {
+                alpha = Math.max(alpha, score);
+            }
+
+            if (alpha >= beta) {
+                break;
+            }
         }
 
         return new Move(bestColumn, bestScore);
     }
 
 
-    private int minimax(Board board, int depth, int alpha, int beta, boolean isMaximizing) {
+    // Searches the first column on the calling thread to get a bound, then splits the remaining
+    // columns across the pool. Every finished column raises the shared root alpha, which running
+    // workers pick up at each node. The alpha is kept one below the best score so ties are still
+    // scored exactly and the same column wins as in the sequential search. Multi-PV searches
+    // leave the alpha where it started so every column is scored exactly.
+    private Move searchRootParallel(Board board, int depth, List<Integer> rootMoves, int[] rootScores,
+                                    int alpha, int beta, Player player, boolean multiPv, SearchContext context) {
+        int firstColumn = rootMoves.get(0);
+        int firstScore = searchRootColumn(new Board(board), firstColumn, depth, alpha, beta, true, player, context);
+        rootScores[firstColumn] = firstScore;
+        if (firstScore >= beta) {
+            return new Move(firstColumn, firstScore);
+        }
 
-        if (depth == 0 || board.isFull()) {
-            return evaluateBoard(board, depth);
+        AtomicInteger sharedAlpha = new AtomicInteger(multiPv ? alpha : Math.max(alpha, firstScore - 1));
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 1; i < rootMoves.size(); i++) {
+            int column = rootMoves.get(i);
+            tasks.add(() -> {
+                SearchContext worker = context.forWorker(sharedAlpha, player);
+                int score = searchRootColumn(new Board(board), column, depth, sharedAlpha.get(), beta, multiPv,
+                        player, worker);
+                if (!multiPv) {
+                    sharedAlpha.accumulateAndGet(score - 1, Math::max);
+                }
+                context.merge(worker);
+                return score;
+            });
         }
 
-        List<Integer> validMoves = board.getValidMoves();
+        List<Future<Integer>> results = searchPool.invokeAll(tasks);
+        for (int i = 1; i < rootMoves.size(); i++) {
+            try {
+                rootScores[rootMoves.get(i)] = results.get(i - 1).get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof SearchAbortedException) {
+                    throw SearchAbortedException.INSTANCE;
+                }
+                throw new IllegalStateException("Parallel search failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw SearchAbortedException.INSTANCE;
+            }
+        }
 
-        if (isMaximizing) {
-            int maxScore = Integer.MIN_VALUE;
+        // Pick the highest score, earliest in search order on ties
+        int bestColumn = firstColumn;
+        for (int column : rootMoves) {
+            if (rootScores[column] > rootScores[bestColumn]) {
+                bestColumn = column;
+            }
+        }
+        return new Move(bestColumn, rootScores[bestColumn]);
+    }
 
-            for (int column : validMoves) {
-                int row = board.makeMove(column, Player.AI);
 
-                int score;
-                if (board.checkWin(row, column, Player.AI)) {
-                    score = Constants.WIN_SCORE;
-                } else {
-                    score = minimax(board, depth - 1, alpha, beta, false);
-                }
+    // Scores one root column from player's point of view. Columns after the first are tested with
+    // a null window first and only re-searched with the full window if they might beat alpha.
+    private int searchRootColumn(Board board, int column, int depth, int alpha, int beta, boolean fullWindow,
+                                 Player player, SearchContext context) {
+        int row = board.makeSearchMove(column, player);
 
-                board.undoMove(column);
+        int score;
+        if (board.checkWin(row, column, player)) {
+            score = Constants.WIN_SCORE + depth - 1;
+        } else if (fullWindow || depth == 1) {
+            score = -negamax(board, depth - 1, -beta, -alpha, player.getOpponent(), context);
+        } else {
+            score = -negamax(board, depth - 1, -alpha - 1, -alpha, player.getOpponent(), context);
+            if (score > alpha && score < beta) {
+                score = -negamax(board, depth - 1, -beta, -alpha, player.getOpponent(), context);
+            }
+        }
 
-                maxScore = Math.max(maxScore, score);
-                alpha = Math.max(alpha, score);
+        board.undoSearchMove();
+        return score;
+    }
 
-                if (beta <= alpha) {
-                    break;
-                }
-            }
 
-            return maxScore;
-        } else {
-            int minScore = Integer.MAX_VALUE;
+    // Lower levels stop at their nominal depth; Expert keeps deepening until the budget runs out
+    private int getMaxDepth(Board board, int difficultyLevel) {
+        int emptyCells = Constants.ROWS * Constants.COLUMNS - board.getMoveCount();
+        if (difficultyLevel > Constants.HARD) {
+            return emptyCells;
+        }
+        return Math.min(difficultyLevel, emptyCells);
+    }
+
+
+    // Principal variation search. Scores are from the point of view of player, the side to move.
+    private int negamax(Board board, int depth, int alpha, int beta, Player player, SearchContext context) {
+        context.visitNode();
+
+        if (depth == 0 || board.isFull()) {
+            context.recordLeaf();
+            int score = evaluateBoard(board, depth);
+            return player == Player.AI ? score : -score;
+        }
+
+        // A win on the spot needs no search, and neither does a position where every move hands
+        // the opponent one; otherwise only the moves that do not are searched. Both are scored
+        // like the terminal position one or two plies down, sooner outcomes further out.
+        long position = board.getBitboard(player);
+        long mask = position | board.getBitboard(player.getOpponent());
+        if (Tactics.canWinNext(position, mask)) {
+            return Constants.WIN_SCORE + depth - 1;
+        }
+        long nonLosing = Tactics.nonLosingMoves(position, mask);
+        if (nonLosing == 0) {
+            return -(Constants.WIN_SCORE + depth - 2);
+        }
 
-            for (int column : validMoves) {
-                int row = board.makeMove(column, Player.PLAYER);
+        // In a parallel search the best root score so far bounds every node below the root
+        int sharedAlpha = context.getSharedAlpha();
+        if (sharedAlpha != Integer.MIN_VALUE) {
+            if (player == context.getRootPlayer()) {
+                alpha = Math.max(alpha, sharedAlpha);
+            } else {
+                beta = Math.min(beta, -sharedAlpha);
+            }
+            if (alpha >= beta) {
+                return alpha;
+            }
+        }
 
-                int score;
-                if (board.checkWin(row, column, Player.PLAYER)) {
-                    score = Constants.LOSE_SCORE;
+        long hash = board.getHash();
+        long entry = transpositionTable.probe(hash);
+        context.recordProbe(entry != 0);
+        int ttMove = TranspositionTable.NO_MOVE;
+        if (entry != 0) {
+            ttMove = TranspositionTable.move(entry);
+            if (TranspositionTable.depth(entry) >= depth) {
+                int ttScore = fromTableScore(TranspositionTable.score(entry), depth);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT) {
+                    return ttScore;
+                } else if (bound == TranspositionTable.LOWER_BOUND) {
+                    alpha = Math.max(alpha, ttScore);
                 } else {
-                    score = minimax(board, depth - 1, alpha, beta, true);
+                    beta = Math.min(beta, ttScore);
                 }
+                if (alpha >= beta) {
+                    return ttScore;
+                }
+            }
+        }
 
-                board.undoMove(column);
+        int originalAlpha = alpha;
+        Player opponent = player.getOpponent();
+        int[] moves = context.getMoveBuffer(board.getMoveCount());
+        int moveCount = Tactics.retainColumns(moves,
+                context.getMoveOrderer().orderMoves(board, player, ttMove, moves), nonLosing);
+        int bestMove = moves[0];
+        int bestScore = -INFINITY;
 
-                minScore = Math.min(minScore, score);
-                beta = Math.min(beta, score);
+        for (int i = 0; i < moveCount; i++) {
+            int column = moves[i];
+            // No move left can win on the spot; that was checked above
+            board.makeSearchMove(column, player);
 
-                if (beta <= alpha) {
-                    break; // Alpha cutoff
+            int score;
+            if (i == 0 || depth == 1) {
+                // Leaves are cheaper to score once with the full window than to test and re-search
+                score = -negamax(board, depth - 1, -beta, -alpha, opponent, context);
+            } else {
+                // Null-window test; re-search only if this move might improve on the best one
+                score = -negamax(board, depth - 1, -alpha - 1, -alpha, opponent, context);
+                if (score > alpha && score < beta) {
+                    score = -negamax(board, depth - 1, -beta, -alpha, opponent, context);
                 }
             }
 
-            return minScore;
+            board.undoSearchMove();
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = column;
+            }
+            alpha = Math.max(alpha, score);
+
+            if (alpha >= beta) {
+                context.recordCutoff(i == 0);
+                context.getMoveOrderer().recordCutoff(board, player, column, depth);
+                break;
+            }
         }
-    }
 
+        int bound;
+        if (bestScore <= originalAlpha) {
+            bound = TranspositionTable.UPPER_BOUND;
+        } else if (bestScore >= beta) {
+            bound = TranspositionTable.LOWER_BOUND;
+        } else {
+            bound = TranspositionTable.EXACT;
+        }
+        transpositionTable.store(hash, depth, bound, toTableScore(bestScore, depth), bestMove);
+
+        return bestScore;
+    }
 
-    private int evaluateBoard(Board board, int depth) {
 
-        Move lastMove = board.getLastMove();
-        if (lastMove == null) {
-            return 0;
+    // Proven scores count the plies to the end from the root, through the remaining depth. The
+    // table keeps them relative to the position instead, so an entry reached at another depth,
+    // or by a later search, still knows how far off the win or loss is.
+    private static int toTableScore(int score, int depth) {
+        if (score >= PROVEN_SCORE) {
+            return score - depth;
+        } else if (score <= -PROVEN_SCORE) {
+            return score + depth;
         }
+        return score;
+    }
 
-        int score = 0;
-        Player[][] grid = board.getGrid();
 
+    private static int fromTableScore(int score, int depth) {
+        if (score >= PROVEN_SCORE) {
+            return score + depth;
+        } else if (score <= -PROVEN_SCORE) {
+            return score - depth;
+        }
+        return score;
+    }
 
-        if (board.checkWin(lastMove.getRow(), lastMove.getColumn(), lastMove.getPlayer())) {
-            if (lastMove.getPlayer() == Player.AI) {
-                return Constants.WIN_SCORE + depth;
-            } else {
-                return Constants.LOSE_SCORE - depth;
-            }
+
+    int evaluateBoard(Board board, int depth) {
+        int terminalScore = evaluateTerminal(board, depth);
+        if (terminalScore != NOT_TERMINAL) {
+            return terminalScore;
         }
 
-        else if (board.isFull()) {
-            return Constants.DRAW_SCORE;
+        return evaluator.evaluate(board);
+    }
+
+
+    // Full rescan of every cell and window; kept as the reference the incremental score is checked against
+    int evaluateBoardByScan(Board board, int depth) {
+        int terminalScore = evaluateTerminal(board, depth);
+        if (terminalScore != NOT_TERMINAL) {
+            return terminalScore;
         }
 
+        int score = 0;
 
         for (int col = 0; col < Constants.COLUMNS; col++) {
             for (int row = 0; row < Constants.ROWS; row++) {
-                if (grid[row][col] == Player.AI) {
+                Player cell = board.getCell(row, col);
+                if (cell == Player.AI) {
                     score += Constants.COLUMN_WEIGHTS[col];
-                } else if (grid[row][col] == Player.PLAYER) {
+                } else if (cell == Player.PLAYER) {
                     score -= Constants.COLUMN_WEIGHTS[col];
                 }
             }
@@ -163,79 +932,94 @@ public class AIService {
     }
 
 
+    private int evaluateTerminal(Board board, int depth) {
+        int lastColumn = board.getLastColumn();
+        if (lastColumn == -1) {
+            return 0;
+        }
+
+        // Read the last disc straight off the board so search leaves never touch the Move history
+        int lastRow = Constants.ROWS - board.getColumnHeights()[lastColumn];
+        Player lastPlayer = board.getCell(lastRow, lastColumn);
+        if (board.checkWin(lastRow, lastColumn, lastPlayer)) {
+            if (lastPlayer == Player.AI) {
+                return Constants.WIN_SCORE + depth;
+            } else {
+                return Constants.LOSE_SCORE - depth;
+            }
+        }
+
+        else if (board.isFull()) {
+            return Constants.DRAW_SCORE;
+        }
+
+        return NOT_TERMINAL;
+    }
+
+
     private int evaluateLines(Board board, Player player) {
         int score = 0;
-        Player[][] grid = board.getGrid();
 
 
         for (int row = 0; row < Constants.ROWS; row++) {
             for (int col = 0; col <= Constants.COLUMNS - 4; col++) {
-                score += evaluateLine(grid, row, col, 0, 1, player);
+                score += evaluateLine(board, row, col, 0, 1, player);
             }
         }
 
 
         for (int row = 0; row <= Constants.ROWS - 4; row++) {
             for (int col = 0; col < Constants.COLUMNS; col++) {
-                score += evaluateLine(grid, row, col, 1, 0, player);
+                score += evaluateLine(board, row, col, 1, 0, player);
             }
         }
 
 
         for (int row = 0; row <= Constants.ROWS - 4; row++) {
             for (int col = 0; col <= Constants.COLUMNS - 4; col++) {
-                score += evaluateLine(grid, row, col, 1, 1, player);
+                score += evaluateLine(board, row, col, 1, 1, player);
             }
         }
 
 
         for (int row = 0; row <= Constants.ROWS - 4; row++) {
             for (int col = 3; col < Constants.COLUMNS; col++) {
-                score += evaluateLine(grid, row, col, 1, -1, player);
+                score += evaluateLine(board, row, col, 1, -1, player);
             }
         }
 
         return score;
     }
 
-    private int evaluateLine(Player[][] grid, int row, int col, int rowDelta, int colDelta, Player player) {
-        Player opponent = player.getOpponent();
+    private int evaluateLine(Board board, int row, int col, int rowDelta, int colDelta, Player player) {
         int playerCount = 0;
-        int emptyCount = 0;
 
         for (int i = 0; i < 4; i++) {
             int r = row + i * rowDelta;
             int c = col + i * colDelta;
 
-            if (grid[r][c] == player) {
+            Player cell = board.getCell(r, c);
+            if (cell == player) {
                 playerCount++;
-            } else if (grid[r][c] == Player.NONE) {
-                emptyCount++;
-            } else {
+            } else if (cell != Player.NONE) {
 
                 return 0;
             }
         }
 
-        // Score based on number of player pieces
-        if (playerCount == 3 && emptyCount == 1) {
-            return 100; // Three in a row with an empty space
-        } else if (playerCount == 2 && emptyCount == 2) {
-            return 10; // Two in a row with two empty spaces
-        } else if (playerCount == 1 && emptyCount == 3) {
-            return 1; // One piece with three empty spaces
-        }
-
-        return 0;
+        // Same table the incremental evaluation in Board uses, so the two cannot drift apart
+        return Constants.WINDOW_SCORES[playerCount];
     }
 
+    // Grades the player's move by the value of the position it left the AI in; the search is the
+    // same one findBestMove then plays from, so the reply costs nothing extra
     public int evaluatePlayerMove(Game game, int column) {
+        return evaluatePlayerMove(game, column, NO_DEADLINE);
+    }
 
-        Board boardCopy = new Board(game.getBoard());
-
-        int score = minimax(boardCopy, game.getDifficultyLevel(),
-                Integer.MIN_VALUE, Integer.MAX_VALUE, true);
 
-        return -score;
+    public int evaluatePlayerMove(Game game, int column, long deadlineNanos) {
+        SearchResult result = analyzePosition(game, deadlineNanos);
+        return result == null ? Constants.DRAW_SCORE : -result.getBestScore();
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
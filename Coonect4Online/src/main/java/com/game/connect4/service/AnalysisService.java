@@ -36,6 +36,12 @@ public class AnalysisService {
 
 
     public String analyzeAIMove(Move move, int difficultyLevel) {
+        return analyzeAIMove(move, difficultyLevel, 1.0);
+    }
+
+
+    // budgetScale below 1.0 means the server was busy and the AI had less time than usual
+    public String analyzeAIMove(Move move, int difficultyLevel, double budgetScale) {
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss"));
         String difficultyName = getDifficultyName(difficultyLevel);
 
@@ -52,6 +58,11 @@ public class AnalysisService {
             analysis = "AI made a standard move";
         }
 
+        if (budgetScale < 1.0) {
+            analysis += String.format(" (server busy: the AI thought for %d%% of its usual time)",
+                    Math.round(budgetScale * 100));
+        }
+
         return String.format("[%s] AI (%s) dropped in column %d. %s",
                 timestamp, difficultyName, move.getColumn(), analysis);
     }
@@ -122,8 +133,12 @@ public class AnalysisService {
             return "Medium";
         } else if (difficultyLevel <= Constants.HARD) {
             return "Hard";
-        } else {
+        } else if (difficultyLevel < Constants.UNBEATABLE) {
             return "Expert";
+        } else if (difficultyLevel == Constants.UNBEATABLE) {
+            return "Unbeatable";
+        } else {
+            return "Monte Carlo";
         }
     }
 }
\ No newline at end of file
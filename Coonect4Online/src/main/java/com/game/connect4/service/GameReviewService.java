@@ -0,0 +1,135 @@
+package com.game.connect4.service;
+
+import com.game.connect4.config.AIProperties;
+import com.game.connect4.model.Board;
+import com.game.connect4.model.GameReview;
+import com.game.connect4.model.Move;
+import com.game.connect4.model.SearchResult;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+
+// Post-game review: every position of a finished game is searched to the review depth on a small
+// pool of its own, and each move is scored against the best one. Reviews run in the background
+// and are kept by move sequence, so viewing the analysis of a game again costs nothing and a
+// second request for a review still running waits for the same one. The positions go through
+// AIService's review cache, so reviews of games with a common opening search it once.
+@Service
+public class GameReviewService {
+
+    private static final Logger log = LoggerFactory.getLogger(GameReviewService.class);
+
+    private final AIService aiService;
+    private final int depth;
+    private final ExecutorService reviewPool;
+    private final Map<String, GameReview> reviews;
+    private final Map<String, CompletableFuture<GameReview>> running = new HashMap<>();
+
+    @Autowired
+    public GameReviewService(AIService aiService, AIProperties properties) {
+        this(aiService, properties, new ForkJoinPool(Math.max(1, properties.getReviewThreads())));
+    }
+
+    GameReviewService(AIService aiService, AIProperties properties, ExecutorService reviewPool) {
+        this.aiService = aiService;
+        this.depth = properties.getReviewDepth();
+        this.reviewPool = reviewPool;
+        int maxReviews = properties.getReviewCacheSize();
+        this.reviews = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, GameReview> eldest) {
+                return size() > maxReviews;
+            }
+        };
+    }
+
+
+    @PreDestroy
+    public void shutdown() {
+        reviewPool.shutdownNow();
+    }
+
+
+    // moves is the finished game's move history; the caller passes a copy taken under the game's
+    // lock. The review kept for these moves, the one already running, or a new one; null while
+    // move searches are under load, as a review would only take threads from them.
+    public CompletableFuture<GameReview> review(List<Move> moves) {
+        String key = key(moves);
+        CompletableFuture<GameReview> review;
+        synchronized (reviews) {
+            GameReview cached = reviews.get(key);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+            review = running.get(key);
+            if (review != null) {
+                return review;
+            }
+            if (aiService.isUnderLoad()) {
+                return null;
+            }
+            review = start(moves);
+            running.put(key, review);
+        }
+
+        review.whenComplete((result, failure) -> {
+            synchronized (reviews) {
+                running.remove(key);
+                if (result != null) {
+                    reviews.put(key, result);
+                }
+            }
+        });
+        return review;
+    }
+
+
+    private CompletableFuture<GameReview> start(List<Move> moves) {
+        long startNanos = System.nanoTime();
+        List<CompletableFuture<GameReview.MoveReview>> moveReviews = new ArrayList<>();
+        Board board = new Board();
+        for (int ply = 0; ply < moves.size(); ply++) {
+            Move move = moves.get(ply);
+            Board position = new Board(board);
+            int number = ply + 1;
+            moveReviews.add(CompletableFuture.supplyAsync(() -> reviewMove(position, move, number), reviewPool));
+            board.makeMove(move.getColumn(), move.getPlayer());
+        }
+
+        return CompletableFuture.allOf(moveReviews.toArray(CompletableFuture[]::new)).thenApply(done -> {
+            List<GameReview.MoveReview> results = moveReviews.stream().map(CompletableFuture::join).toList();
+            log.debug("Reviewed {} moves in {} ms", moves.size(), (System.nanoTime() - startNanos) / 1_000_000L);
+            return new GameReview(results, depth);
+        });
+    }
+
+
+    private GameReview.MoveReview reviewMove(Board position, Move move, int ply) {
+        SearchResult result = aiService.reviewPosition(position, move.getPlayer(), depth);
+        int score = result.getColumnScore(move.getColumn());
+        return new GameReview.MoveReview(ply, move.getPlayer(), move.getColumn(), score,
+                result.getBestColumn(), result.getBestScore());
+    }
+
+
+    // The columns in order; the player who moved first is part of it, as the scores depend on it
+    private static String key(List<Move> moves) {
+        StringBuilder key = new StringBuilder(moves.isEmpty() ? "" : moves.get(0).getPlayer().name());
+        for (Move move : moves) {
+            key.append(move.getColumn());
+        }
+        return key.toString();
+    }
+}
@@ -4,12 +4,16 @@ import com.game.connect4.model.Game;
 import com.game.connect4.model.GameStatus;
 import com.game.connect4.model.Move;
 import com.game.connect4.model.Player;
+import com.game.connect4.model.SearchResult;
+import com.game.connect4.repository.GameRepository;
 import com.game.connect4.utils.Constants;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 
 @Service
@@ -17,40 +21,115 @@ public class GameService {
 
     private final AIService aiService;
     private final AnalysisService analysisService;
-
-    // In-memory storage for game sessions
-    private final Map<String, Game> games = new HashMap<>();
+    private final PonderService ponderService;
+    private final GameRepository gameRepository;
 
     @Autowired
-    public GameService(AIService aiService, AnalysisService analysisService) {
+    public GameService(AIService aiService, AnalysisService analysisService, PonderService ponderService,
+                       GameRepository gameRepository) {
         this.aiService = aiService;
         this.analysisService = analysisService;
+        this.ponderService = ponderService;
+        this.gameRepository = gameRepository;
     }
 
 
     public Game createGame(int difficultyLevel) {
         Game game = new Game(difficultyLevel);
-        games.put(game.getId(), game);
+        gameRepository.save(game);
         return game;
     }
 
 
     public Game getGame(String gameId) {
-        return games.get(gameId);
+        return gameRepository.findById(gameId);
+    }
+
+
+    // Runs several steps on one game without another request for it getting in between;
+    // returns null when there is no such game
+    public <T> T withGame(String gameId, Function<Game, T> action) {
+        return gameRepository.withLock(gameId, action);
+    }
+
+
+    // The player's move and the AI's reply under one hold of the game's lock, for the move
+    // endpoints. A turn whose deadline passed while it was queued leaves the game alone, so the
+    // player can retry it. Callers send the result to clients after it returns, outside the lock.
+    public TurnResult playTurn(String gameId, int column, long deadlineNanos) {
+        if (System.nanoTime() > deadlineNanos) {
+            return refused(TurnOutcome.TIMED_OUT, null);
+        }
+        TurnResult result = gameRepository.withLock(gameId, game -> playTurn(game, column, deadlineNanos));
+        return result == null ? refused(TurnOutcome.NOT_FOUND, null) : result;
+    }
+
+
+    private TurnResult playTurn(Game game, int column, long deadlineNanos) {
+        if (game.getStatus() != GameStatus.IN_PROGRESS || !game.getBoard().isValidMove(column)) {
+            return refused(TurnOutcome.INVALID, game.getStatus());
+        }
+
+        int analyses = game.getGameAnalysis().size();
+        int playerRow = makePlayerMove(game, column, deadlineNanos);
+        if (playerRow == -1) {
+            return refused(TurnOutcome.INVALID, game.getStatus());
+        }
+        Move playerMove = new Move(column, playerRow, Player.PLAYER);
+        String playerAnalysis = newAnalysis(game, analyses);
+        long playerVersion = game.getVersion();
+
+        Move aiMove = null;
+        String aiAnalysis = null;
+        if (game.getStatus() == GameStatus.IN_PROGRESS) {
+            analyses = game.getGameAnalysis().size();
+            aiMove = makeAIMove(game, deadlineNanos);
+            aiAnalysis = aiMove != null ? newAnalysis(game, analyses) : null;
+        }
+
+        String summary = game.getStatus() != GameStatus.IN_PROGRESS ? analysisService.createGameSummary(game) : null;
+        return new TurnResult(TurnOutcome.PLAYED, playerMove, playerAnalysis, playerVersion, aiMove, aiAnalysis,
+                game.getStatus(), game.getVersion(), summary);
+    }
+
+
+    private static TurnResult refused(TurnOutcome outcome, GameStatus status) {
+        return new TurnResult(outcome, null, null, 0, null, null, status, 0, null);
+    }
+
+
+    private static String newAnalysis(Game game, int analysesBefore) {
+        List<String> analyses = game.getGameAnalysis();
+        return analyses.size() > analysesBefore ? analyses.get(analyses.size() - 1) : null;
     }
 
 
     public int makePlayerMove(String gameId, int column) {
-        Game game = games.get(gameId);
-        if (game == null || game.getCurrentPlayer() != Player.PLAYER) {
+        return makePlayerMove(gameId, column, AIService.NO_DEADLINE);
+    }
+
+
+    // The deadline bounds the search that grades the move, which the AI's reply then reuses
+    public int makePlayerMove(String gameId, int column, long deadlineNanos) {
+        Integer row = gameRepository.withLock(gameId, game -> makePlayerMove(game, column, deadlineNanos));
+        return row == null ? -1 : row;
+    }
+
+
+    private int makePlayerMove(Game game, int column, long deadlineNanos) {
+        if (game.getCurrentPlayer() != Player.PLAYER) {
             return -1;
         }
 
+        ponderService.stopPondering(game);
         int row = game.makeMove(column);
+        if (row != -1) {
+            gameRepository.update(game);
+        }
 
         // If the game is still in progress and it's the AI's turn, analyze the player's move
         if (row != -1 && game.getStatus() == GameStatus.IN_PROGRESS) {
-            analyzePlayerMove(game, column);
+            analyzePlayerMove(game, column, deadlineNanos);
         }
 
         return row;
@@ -58,58 +137,77 @@ public class GameService {
 
 
     public Move makeAIMove(String gameId) {
-        Game game = games.get(gameId);
-        if (game == null || game.getCurrentPlayer() != Player.AI || game.getStatus() != GameStatus.IN_PROGRESS) {
+        return makeAIMove(gameId, AIService.NO_DEADLINE);
+    }
+
+
+    public Move makeAIMove(String gameId, long deadlineNanos) {
+        return gameRepository.withLock(gameId, game -> makeAIMove(game, deadlineNanos));
+    }
+
+
+    private Move makeAIMove(Game game, long deadlineNanos) {
+        if (game.getCurrentPlayer() != Player.AI || game.getStatus() != GameStatus.IN_PROGRESS) {
             return null;
         }
 
         // Get the best move for the AI
-        Move bestMove = aiService.findBestMove(game);
+        Move bestMove = aiService.findBestMove(game, deadlineNanos);
         if (bestMove == null) {
             return null;
         }
+        SearchResult search = game.getLastSearch();
+        double budgetScale = search != null ? search.getBudgetScale() : 1.0;
 
         // Make the move
         int row = game.makeMove(bestMove.getColumn());
         if (row != -1) {
+            gameRepository.update(game);
             bestMove.setRow(row);
             bestMove.setPlayer(Player.AI);
 
             // Add analysis of the AI's move
-            analyzeAIMove(game, bestMove);
+            analyzeAIMove(game, bestMove, budgetScale);
+
+            // Use the player's think time to prepare the next reply
+            ponderService.startPondering(game);
         }
 
         return bestMove;
     }
 
 
-    public Game resetGame(String gameId) {
-        Game game = games.get(gameId);
-        if (game != null) {
+    // The game's version after the reset, taken under the lock; null when there is no such game
+    public Long resetGame(String gameId) {
+        return gameRepository.withLock(gameId, game -> {
+            ponderService.stopPondering(game);
             game.resetGame();
-        }
-        return game;
+            gameRepository.update(game);
+            return game.getVersion();
+        });
     }
 
 
-    private void analyzePlayerMove(Game game, int column) {
-        int evaluation = aiService.evaluatePlayerMove(game, column);
+    private void analyzePlayerMove(Game game, int column, long deadlineNanos) {
+        int evaluation = aiService.evaluatePlayerMove(game, column, deadlineNanos);
         String analysis = analysisService.analyzePlayerMove(column, evaluation);
         game.addAnalysis(analysis);
     }
 
 
-    private void analyzeAIMove(Game game, Move move) {
-        String analysis = analysisService.analyzeAIMove(move, game.getDifficultyLevel());
+    private void analyzeAIMove(Game game, Move move, double budgetScale) {
+        String analysis = analysisService.analyzeAIMove(move, game.getDifficultyLevel(), budgetScale);
         game.addAnalysis(analysis);
     }
 
 
-    public void setDifficultyLevel(String gameId, int difficultyLevel) {
-        Game game = games.get(gameId);
-        if (game != null) {
+    // The game's version after the change, taken under the lock; null when there is no such game
+    public Long setDifficultyLevel(String gameId, int difficultyLevel) {
+        return gameRepository.withLock(gameId, game -> {
             game.setDifficultyLevel(difficultyLevel);
-        }
+            gameRepository.update(game);
+            return game.getVersion();
+        });
     }
 
 
@@ -119,16 +217,36 @@ public class GameService {
         levels.put("Medium", Constants.MEDIUM);
         levels.put("Hard", Constants.HARD);
         levels.put("Expert", Constants.EXPERT);
+        levels.put("Unbeatable", Constants.UNBEATABLE);
+        levels.put("Monte Carlo", Constants.MONTE_CARLO);
         return levels;
     }
 
 
     public String getGameSummary(String gameId) {
-        Game game = games.get(gameId);
-        if (game == null) {
-            return "Game not found";
-        }
+        String summary = gameRepository.withLock(gameId, analysisService::createGameSummary);
+        return summary == null ? "Game not found" : summary;
+    }
 
-        return analysisService.createGameSummary(game);
+
+    public enum TurnOutcome {
+        PLAYED,
+        INVALID,
+        TIMED_OUT,
+        NOT_FOUND
+    }
+
+
+    // What a turn did. Only PLAYED turns have a player move; the AI's is null when the player's
+    // move ended the game. status is the game's status after the turn (null unless the game was
+    // found and the deadline had not passed), and summary is set once the game is over. The
+    // versions are the game's right after each move, for ordering the updates sent to pages.
+    public record TurnResult(TurnOutcome outcome, Move playerMove, String playerAnalysis, long playerVersion,
+                             Move aiMove, String aiAnalysis, GameStatus status, long version, String summary) {
+
+        // Status the game had right after the player's disc, before the AI replied
+        public GameStatus statusAfterPlayerMove() {
+            return aiMove != null ? GameStatus.IN_PROGRESS : status;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,149 @@
+package com.game.connect4.service;
+
+import com.game.connect4.config.AIProperties;
+import com.game.connect4.model.Board;
+import com.game.connect4.model.GameStatus;
+import com.game.connect4.model.Player;
+import com.game.connect4.model.SearchResult;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+// Suggests the player's next move as a Server-Sent Events stream: a "hint" event with the best
+// column so far after every completed depth of a deepening search, then "done". The search runs
+// on a few low-priority threads of its own, never on a servlet or move thread, and stops at the
+// hint time cap or as soon as the client goes away. Hints that cannot get a thread, or that are
+// asked for while moves are short of time, get a "busy" event instead.
+@Service
+public class HintService {
+
+    private static final Logger log = LoggerFactory.getLogger(HintService.class);
+
+    // The emitter outlives the search by this much, so "done" always gets out first
+    private static final long EMITTER_GRACE_MS = 5000;
+
+    private final GameService gameService;
+    private final AIService aiService;
+    private final AIProperties properties;
+    private final ThreadPoolExecutor hintPool;
+    private final Set<AtomicBoolean> activeHints = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public HintService(GameService gameService, AIService aiService, AIProperties properties) {
+        this.gameService = gameService;
+        this.aiService = aiService;
+        this.properties = properties;
+        this.hintPool = createHintPool(Math.max(1, properties.getHintThreads()));
+    }
+
+
+    private static ThreadPoolExecutor createHintPool(int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads), runnable -> {
+                    Thread thread = new Thread(runnable, "hint-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+    }
+
+
+    @PreDestroy
+    public void shutdown() {
+        activeHints.forEach(cancelled -> cancelled.set(true));
+        hintPool.shutdownNow();
+    }
+
+
+    public SseEmitter streamHint(String gameId) {
+        long timeMs = properties.getHintTimeMs();
+        SseEmitter emitter = new SseEmitter(timeMs + EMITTER_GRACE_MS);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        emitter.onCompletion(() -> cancelled.set(true));
+        emitter.onTimeout(() -> cancelled.set(true));
+        emitter.onError(e -> cancelled.set(true));
+
+        // Snapshot under the game's lock; the game itself is never read from the hint thread
+        Board board = gameService.withGame(gameId, game ->
+                game.getStatus() == GameStatus.IN_PROGRESS && game.getCurrentPlayer() == Player.PLAYER
+                        ? new Board(game.getBoard()) : null);
+        if (board == null) {
+            finish(emitter, "unavailable", "No move to hint at");
+            return emitter;
+        }
+        // Under load the move searches need the cores more than a hint does
+        if (aiService.isUnderLoad()) {
+            finish(emitter, "busy", "The server is busy, please try again");
+            return emitter;
+        }
+
+        activeHints.add(cancelled);
+        try {
+            hintPool.execute(() -> hint(board, timeMs, emitter, cancelled));
+        } catch (RejectedExecutionException e) {
+            activeHints.remove(cancelled);
+            finish(emitter, "busy", "The server is busy, please try again");
+        }
+        return emitter;
+    }
+
+
+    private void hint(Board board, long timeMs, SseEmitter emitter, AtomicBoolean cancelled) {
+        AtomicInteger hints = new AtomicInteger();
+        try {
+            aiService.searchProgressively(board, Player.PLAYER, timeMs, cancelled, result -> {
+                send(emitter, cancelled, "hint", Hint.of(result));
+                hints.incrementAndGet();
+            });
+            if (!cancelled.get()) {
+                finish(emitter, "done", "");
+            }
+        } catch (RuntimeException e) {
+            emitter.completeWithError(e);
+        } finally {
+            activeHints.remove(cancelled);
+            log.debug("Sent {} hints{}", hints.get(), cancelled.get() ? " before the client left" : "");
+        }
+    }
+
+
+    private static void finish(SseEmitter emitter, String name, String message) {
+        send(emitter, new AtomicBoolean(), name, message);
+        emitter.complete();
+    }
+
+
+    // A failed send means the client has gone; the search stops at its next node check
+    private static void send(SseEmitter emitter, AtomicBoolean cancelled, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            cancelled.set(true);
+        }
+    }
+
+
+    // Score from the player's point of view; depth is 0 when tactics settled the move without a search
+    public record Hint(int column, int score, int depth) {
+
+        static Hint of(SearchResult result) {
+            return new Hint(result.getBestColumn(), result.getBestScore(), result.getDepth());
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.game.connect4.service;
+
+import com.game.connect4.ai.HeuristicMoveOrderer;
+import com.game.connect4.ai.SearchAbortedException;
+import com.game.connect4.ai.TranspositionTable;
+import com.game.connect4.config.AIProperties;
+import com.game.connect4.model.Board;
+import com.game.connect4.model.Game;
+import com.game.connect4.model.GameStatus;
+import com.game.connect4.model.Player;
+import com.game.connect4.model.SearchResult;
+import com.game.connect4.utils.Constants;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+// Searches the player's likely replies while they think, so the AI's next move is often already
+// in the game's pondered results and the transposition table is warm for the rest. A few
+// low-priority threads serve every game, which caps the CPU pondering can take; games that
+// cannot get a thread simply go without.
+@Service
+public class PonderService {
+
+    private static final Logger log = LoggerFactory.getLogger(PonderService.class);
+
+    private final AIService aiService;
+    private final AIProperties properties;
+    private final ThreadPoolExecutor ponderPool;
+    private final Map<String, AtomicBoolean> activePonders = new ConcurrentHashMap<>();
+    private final AtomicLong pondersStarted = new AtomicLong();
+
+    @Autowired
+    public PonderService(AIService aiService, AIProperties properties) {
+        this.aiService = aiService;
+        this.properties = properties;
+        this.ponderPool = properties.getPonderThreads() > 0 ? createPonderPool(properties.getPonderThreads()) : null;
+    }
+
+
+    private static ThreadPoolExecutor createPonderPool(int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads), runnable -> {
+                    Thread thread = new Thread(runnable, "ponder-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+    }
+
+
+    @PreDestroy
+    public void shutdown() {
+        if (ponderPool != null) {
+            activePonders.values().forEach(cancelled -> cancelled.set(true));
+            ponderPool.shutdownNow();
+        }
+    }
+
+
+    // Called after the AI has moved; only Hard and up search long enough to be worth pondering
+    public void startPondering(Game game) {
+        if (ponderPool == null || game.getStatus() != GameStatus.IN_PROGRESS
+                || game.getDifficultyLevel() < Constants.HARD) {
+            return;
+        }
+
+        stopPondering(game);
+        game.clearPonderedResults();
+
+        // Under load the move searches need the cores more than a guess at the player's reply does
+        if (aiService.isUnderLoad()) {
+            return;
+        }
+
+        // Snapshot on the request thread; the game itself is never read from the ponder thread
+        Board board = new Board(game.getBoard());
+        int difficultyLevel = game.getDifficultyLevel();
+        Player replying = game.getCurrentPlayer();
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        activePonders.put(game.getId(), cancelled);
+        try {
+            ponderPool.execute(() -> ponder(game, board, difficultyLevel, replying, cancelled));
+            pondersStarted.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            activePonders.remove(game.getId(), cancelled);
+            log.debug("No ponder thread free for game {}", game.getId());
+        }
+    }
+
+
+    // Ponder tasks handed to the pool since startup, for tests
+    long getPondersStarted() {
+        return pondersStarted.get();
+    }
+
+
+    // Called before the player's move is applied, so the AI's own search gets the CPU back
+    public void stopPondering(Game game) {
+        AtomicBoolean cancelled = activePonders.remove(game.getId());
+        if (cancelled != null) {
+            cancelled.set(true);
+        }
+    }
+
+
+    // Searches the position after each reply, most promising replies first, with the same level
+    // and budget as a real AI move, so a stored result is as good as searching on the spot
+    private void ponder(Game game, Board board, int difficultyLevel, Player replying, AtomicBoolean cancelled) {
+        long idleDeadline = System.nanoTime() + properties.getPonderIdleMs() * 1_000_000L;
+        int[] replies = new int[Constants.COLUMNS];
+        int replyCount = new HeuristicMoveOrderer().orderMoves(board, replying, TranspositionTable.NO_MOVE, replies);
+        int pondered = 0;
+
+        try {
+            for (int i = 0; i < replyCount && !cancelled.get() && System.nanoTime() < idleDeadline; i++) {
+                int column = replies[i];
+                int row = board.makeSearchMove(column, replying);
+                if (!board.checkWin(row, column, replying) && !board.isFull()) {
+                    SearchResult result = aiService.searchCancellable(board, difficultyLevel, replying.getOpponent(),
+                            game.getId(), cancelled);
+                    game.addPonderedResult(result);
+                    pondered++;
+                }
+                board.undoSearchMove();
+            }
+        } catch (SearchAbortedException e) {
+            // Cancelled by the player's move; whatever was stored and the warm table still help
+        } finally {
+            activePonders.remove(game.getId(), cancelled);
+            log.debug("Pondered {} replies for game {}", pondered, game.getId());
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.game.connect4.service;
+
+import com.game.connect4.config.AIProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+
+// Shrinks search time budgets while the server is overloaded, so a spike slows every game a
+// little instead of queueing moves until requests time out. Load is measured two ways, and the
+// worse one counts:
+//
+//   backlog  (searches running + moves waiting in the queue) / move threads
+//   waiting  p99 of the time moves of the last half minute waited for a move thread / target wait
+//
+// Only the wait counts, not the whole request: a search is meant to use its level's budget, so an
+// Unbeatable move that thinks for seconds says nothing about load, while moves waiting for a
+// thread do.
+//
+// Above 1 the budgets are divided by it, never below minBudgetScale of the usual budget. Every
+// search started at the same moment gets the same share of its usual budget, whatever its level,
+// and full budgets come back as soon as the backlog clears and slow requests leave the window.
+@Service
+public class SearchBudgetScheduler {
+
+    // The wait percentile is taken over at most this many of the latest moves, and only those
+    // that started within the last WAIT_MAX_AGE_NANOS
+    private static final int WAIT_WINDOW = 200;
+    private static final long WAIT_MAX_AGE_NANOS = 30_000_000_000L;
+
+    private final boolean enabled;
+    private final int capacity;
+    private final long targetWaitNanos;
+    private final double minBudgetScale;
+    private final IntSupplier queuedMoves;
+    private final LongSupplier nanoClock;
+
+    private int activeSearches;
+    private final long[] waits = new long[WAIT_WINDOW];
+    private final long[] waitTimes = new long[WAIT_WINDOW];
+    private int waitCount;
+
+    @Autowired
+    public SearchBudgetScheduler(AIProperties properties, ThreadPoolExecutor moveExecutor) {
+        this(properties, () -> moveExecutor.getQueue().size(), System::nanoTime);
+    }
+
+    SearchBudgetScheduler(AIProperties properties, IntSupplier queuedMoves, LongSupplier nanoClock) {
+        this.enabled = properties.isAdaptiveBudget();
+        this.capacity = Math.max(1, properties.getMoveThreads());
+        this.targetWaitNanos = properties.getTargetQueueWaitMs() * 1_000_000L;
+        this.minBudgetScale = properties.getMinBudgetScale();
+        this.queuedMoves = queuedMoves;
+        this.nanoClock = nanoClock;
+    }
+
+
+    // For an AIService used outside Spring, in tests, benchmarks and tournaments: always full budgets
+    public static SearchBudgetScheduler unscheduled() {
+        AIProperties properties = new AIProperties();
+        properties.setAdaptiveBudget(false);
+        return new SearchBudgetScheduler(properties, () -> 0, System::nanoTime);
+    }
+
+
+    // Call before a move's search and close the lease when it is done
+    public synchronized Lease acquire() {
+        activeSearches++;
+        return new Lease(budgetScale(activeSearches));
+    }
+
+
+    // True when searches are currently getting less than their usual budget
+    public synchronized boolean isUnderLoad() {
+        return budgetScale(activeSearches + 1) < 1.0;
+    }
+
+
+    // Time a move request waited from arrival until a move thread started on it
+    public synchronized void recordQueueWait(long nanos) {
+        int slot = waitCount++ % WAIT_WINDOW;
+        waits[slot] = nanos;
+        waitTimes[slot] = nanoClock.getAsLong();
+    }
+
+
+    private double budgetScale(int searches) {
+        if (!enabled) {
+            return 1.0;
+        }
+        double backlog = (double) (searches + queuedMoves.getAsInt()) / capacity;
+        double waiting = (double) waitPercentile99() / targetWaitNanos;
+        double load = Math.max(backlog, waiting);
+        return load <= 1.0 ? 1.0 : Math.max(minBudgetScale, 1.0 / load);
+    }
+
+
+    private long waitPercentile99() {
+        long oldest = nanoClock.getAsLong() - WAIT_MAX_AGE_NANOS;
+        long[] recent = new long[WAIT_WINDOW];
+        int count = 0;
+        for (int i = 0; i < Math.min(waitCount, WAIT_WINDOW); i++) {
+            if (waitTimes[i] - oldest > 0) {
+                recent[count++] = waits[i];
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        Arrays.sort(recent, 0, count);
+        return recent[(int) Math.ceil(count * 0.99) - 1];
+    }
+
+
+    private synchronized void release() {
+        activeSearches--;
+    }
+
+
+    public class Lease implements AutoCloseable {
+        private final double budgetScale;
+        private boolean closed;
+
+        private Lease(double budgetScale) {
+            this.budgetScale = budgetScale;
+        }
+
+        // Share of the usual budget this search gets, 1.0 when the server is not under load
+        public double getBudgetScale() {
+            return budgetScale;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release();
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.game.connect4.service;
+
+import com.game.connect4.ai.PositionCache;
+import com.game.connect4.config.TelemetryProperties;
+import com.game.connect4.model.SearchTelemetry;
+import com.game.connect4.model.SearchTelemetryReport;
+import com.game.connect4.model.SearchTelemetrySummary;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+
+// Keeps the telemetry of the most recent searches in a fixed-size ring and exports every search
+// to Micrometer, tagged by difficulty, where the move came from and whether it was pondered
+@Service
+public class SearchTelemetryService {
+
+    private final boolean enabled;
+    private final MeterRegistry meterRegistry;
+    private final AtomicReferenceArray<SearchTelemetry> history;
+    private final AtomicLong recorded = new AtomicLong();
+
+    @Autowired
+    public SearchTelemetryService(TelemetryProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.meterRegistry = meterRegistry;
+        this.history = new AtomicReferenceArray<>(enabled ? Math.max(1, properties.getHistorySize()) : 0);
+    }
+
+
+    // For an AIService used outside Spring, in tests and benchmarks
+    public static SearchTelemetryService disabled() {
+        TelemetryProperties properties = new TelemetryProperties();
+        properties.setEnabled(false);
+        return new SearchTelemetryService(properties, new SimpleMeterRegistry());
+    }
+
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+
+    // Exports the hit and miss counts and the size of the shared position cache
+    public void monitor(PositionCache cache) {
+        if (!enabled) {
+            return;
+        }
+        FunctionCounter.builder("connect4.position.cache.hits", cache, PositionCache::getHits).register(meterRegistry);
+        FunctionCounter.builder("connect4.position.cache.misses", cache, PositionCache::getMisses)
+                .register(meterRegistry);
+        FunctionCounter.builder("connect4.position.cache.evictions", cache, PositionCache::getEvictions)
+                .register(meterRegistry);
+        Gauge.builder("connect4.position.cache.size", cache, PositionCache::size).register(meterRegistry);
+    }
+
+
+    public void record(SearchTelemetry search) {
+        if (!enabled) {
+            return;
+        }
+
+        int slot = (int) (recorded.getAndIncrement() % history.length());
+        history.set(slot, search);
+
+        Tags tags = Tags.of(
+                "difficulty", String.valueOf(search.getDifficultyLevel()),
+                "source", search.getSource().name().toLowerCase(Locale.ROOT),
+                "pondered", String.valueOf(search.isPondered()));
+        Timer.builder("connect4.search.time")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(search.getDurationNanos(), TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("connect4.search.nodes")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(search.getNodes());
+        DistributionSummary.builder("connect4.search.depth")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(search.getDepth());
+
+        // Rates are these counters divided by each other, e.g. table hits over table probes
+        meterRegistry.counter("connect4.search.leaf.evaluations", tags).increment(search.getLeafEvaluations());
+        meterRegistry.counter("connect4.search.cutoffs", tags).increment(search.getCutoffs());
+        meterRegistry.counter("connect4.search.cutoffs.first.move", tags).increment(search.getFirstMoveCutoffs());
+        meterRegistry.counter("connect4.search.table.probes", tags).increment(search.getTableProbes());
+        meterRegistry.counter("connect4.search.table.hits", tags).increment(search.getTableHits());
+        if (search.isBookProbed()) {
+            meterRegistry.counter("connect4.search.book.probes", tags).increment();
+        }
+    }
+
+
+    // Every search still in the ring, oldest first
+    public List<SearchTelemetry> getRecentSearches() {
+        List<SearchTelemetry> searches = new ArrayList<>();
+        if (!enabled) {
+            return searches;
+        }
+
+        long end = recorded.get();
+        for (long i = Math.max(0, end - history.length()); i < end; i++) {
+            SearchTelemetry search = history.get((int) (i % history.length()));
+            // Skips a slot a concurrent record has claimed but not yet filled
+            if (search != null) {
+                searches.add(search);
+            }
+        }
+        return searches;
+    }
+
+
+    public SearchTelemetryReport report() {
+        return summarize(getRecentSearches(), null);
+    }
+
+
+    public SearchTelemetryReport report(String gameId) {
+        List<SearchTelemetry> searches = new ArrayList<>();
+        for (SearchTelemetry search : getRecentSearches()) {
+            if (gameId.equals(search.getGameId())) {
+                searches.add(search);
+            }
+        }
+        return summarize(searches, searches);
+    }
+
+
+    private SearchTelemetryReport summarize(List<SearchTelemetry> searches, List<SearchTelemetry> listed) {
+        SearchTelemetrySummary overall = new SearchTelemetrySummary();
+        Map<Integer, SearchTelemetrySummary> byDifficulty = new TreeMap<>();
+        for (SearchTelemetry search : searches) {
+            overall.add(search);
+            byDifficulty.computeIfAbsent(search.getDifficultyLevel(), level -> new SearchTelemetrySummary()).add(search);
+        }
+        return new SearchTelemetryReport(enabled, overall, byDifficulty, listed);
+    }
+}
@@ -0,0 +1,114 @@
+package com.game.connect4.tournament;
+
+import com.game.connect4.config.AIProperties;
+import com.game.connect4.service.AIService;
+import com.game.connect4.utils.Constants;
+
+import java.util.Locale;
+
+
+// One side of a match: a difficulty level and the engine settings it plays with, written as
+// "level[,key=value...]", for example "expert" or "7,budget=250,tt=8". The level is a number or
+// easy/medium/hard/expert/unbeatable/monte-carlo. Keys:
+//
+//   budget      time budget per move at this level, ms
+//   tt          transposition table, MB
+//   solver-tt   solver table, MB
+//   solver-ms   solver time budget, ms
+//   cache       shared position cache, MB (0 turns it off)
+//   playouts    Monte Carlo playouts per move
+//   eval        leaf evaluation, heuristic or ntuple
+//   weights     N-tuple weights file (default: the bundled weights)
+//   threads     search threads per move
+//   book        opening book file
+//
+// Tables default smaller than the server's, since every tournament thread has its own engines.
+public class EngineSpec {
+
+    private final String description;
+    private final int difficultyLevel;
+    private final AIProperties properties;
+
+    private EngineSpec(String description, int difficultyLevel, AIProperties properties) {
+        this.description = description;
+        this.difficultyLevel = difficultyLevel;
+        this.properties = properties;
+    }
+
+
+    public static EngineSpec parse(String spec) {
+        String[] parts = spec.split(",");
+        int difficultyLevel = parseLevel(parts[0].trim());
+
+        AIProperties properties = new AIProperties();
+        properties.setTranspositionTableMb(4);
+        properties.setSolverTableMb(8);
+        properties.setPositionCacheMb(4);
+        properties.setSearchThreads(1);
+
+        for (int i = 1; i < parts.length; i++) {
+            String[] option = parts[i].split("=", 2);
+            if (option.length != 2) {
+                throw new IllegalArgumentException("Expected key=value in engine spec: " + parts[i]);
+            }
+            String value = option[1].trim();
+            switch (option[0].trim()) {
+                case "budget" -> setBudget(properties, difficultyLevel, Long.parseLong(value));
+                case "tt" -> properties.setTranspositionTableMb(Integer.parseInt(value));
+                case "solver-tt" -> properties.setSolverTableMb(Integer.parseInt(value));
+                case "solver-ms" -> properties.setSolverTimeBudgetMs(Long.parseLong(value));
+                case "cache" -> properties.setPositionCacheMb(Integer.parseInt(value));
+                case "playouts" -> properties.setMonteCarloPlayouts(Integer.parseInt(value));
+                case "eval" -> properties.setEvaluator(value);
+                case "weights" -> properties.setNtupleWeights(value);
+                case "threads" -> properties.setSearchThreads(Integer.parseInt(value));
+                case "book" -> properties.setOpeningBook(value);
+                default -> throw new IllegalArgumentException("Unknown engine option: " + option[0]);
+            }
+        }
+        return new EngineSpec(spec, difficultyLevel, properties);
+    }
+
+
+    private static int parseLevel(String level) {
+        return switch (level.toLowerCase(Locale.ROOT)) {
+            case "easy" -> Constants.EASY;
+            case "medium" -> Constants.MEDIUM;
+            case "hard" -> Constants.HARD;
+            case "expert" -> Constants.EXPERT;
+            case "unbeatable" -> Constants.UNBEATABLE;
+            case "monte-carlo" -> Constants.MONTE_CARLO;
+            default -> Integer.parseInt(level);
+        };
+    }
+
+
+    // Same level boundaries as AIProperties.getTimeBudgetMs
+    private static void setBudget(AIProperties properties, int difficultyLevel, long budgetMs) {
+        AIProperties.TimeBudget budget = properties.getTimeBudgetMs();
+        if (difficultyLevel <= Constants.EASY) {
+            budget.setEasy(budgetMs);
+        } else if (difficultyLevel <= Constants.MEDIUM) {
+            budget.setMedium(budgetMs);
+        } else if (difficultyLevel <= Constants.HARD) {
+            budget.setHard(budgetMs);
+        } else {
+            budget.setExpert(budgetMs);
+        }
+    }
+
+
+    // A fresh engine with its own tables; one per tournament thread, so games never share a table
+    public AIService createService() {
+        return new AIService(properties);
+    }
+
+    public int getDifficultyLevel() {
+        return difficultyLevel;
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
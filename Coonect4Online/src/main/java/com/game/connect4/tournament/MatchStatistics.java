@@ -0,0 +1,176 @@
+package com.game.connect4.tournament;
+
+
+// Results of a match from the first engine's point of view: the score, the Elo difference with
+// its 95% confidence interval, and a sequential probability ratio test of "the first engine is
+// elo0 stronger" against "it is elo1 stronger". Thread-safe; games report as they finish.
+public class MatchStatistics {
+
+    public enum Decision {
+        // The first engine is at least elo1 stronger
+        ACCEPT_ELO1,
+        // It is no more than elo0 stronger
+        ACCEPT_ELO0,
+        // Not enough games to tell yet
+        CONTINUE
+    }
+
+    private static final double Z_95 = 1.959964;
+
+    private final double elo0;
+    private final double elo1;
+    private final double lowerBound;
+    private final double upperBound;
+
+    private long wins;
+    private long draws;
+    private long losses;
+    private final long[] moves = new long[2];
+    private final long[] moveNanos = new long[2];
+    private final long[] nodes = new long[2];
+
+    // alpha and beta are the accepted chances of wrongly accepting elo1 and elo0
+    public MatchStatistics(double elo0, double elo1, double alpha, double beta) {
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.lowerBound = Math.log(beta / (1 - alpha));
+        this.upperBound = Math.log((1 - beta) / alpha);
+    }
+
+
+    // result is 1 for a first-engine win, 0 for a draw and -1 for a loss. Returns the number of
+    // games counted so far, this one included.
+    public synchronized long addGame(int result) {
+        if (result > 0) {
+            wins++;
+        } else if (result == 0) {
+            draws++;
+        } else {
+            losses++;
+        }
+        return wins + draws + losses;
+    }
+
+
+    public synchronized void addMove(int engine, long nanos, long searchNodes) {
+        moves[engine]++;
+        moveNanos[engine] += nanos;
+        nodes[engine] += searchNodes;
+    }
+
+
+    public synchronized long getGames() {
+        return wins + draws + losses;
+    }
+
+    public synchronized long getWins() {
+        return wins;
+    }
+
+    public synchronized long getDraws() {
+        return draws;
+    }
+
+    public synchronized long getLosses() {
+        return losses;
+    }
+
+    public synchronized double getScore() {
+        long games = getGames();
+        return games == 0 ? 0.5 : (wins + 0.5 * draws) / games;
+    }
+
+
+    public synchronized double getElo() {
+        return toElo(getScore());
+    }
+
+    public synchronized double getEloLower() {
+        return toElo(getScore() - Z_95 * getScoreError());
+    }
+
+    public synchronized double getEloUpper() {
+        return toElo(getScore() + Z_95 * getScoreError());
+    }
+
+
+    // Log-likelihood ratio of elo1 over elo0, using the normal approximation to the
+    // win/draw/loss distribution (the generalised SPRT)
+    public synchronized double getLogLikelihoodRatio() {
+        long games = getGames();
+        double variance = getVariance();
+        if (games == 0 || variance == 0) {
+            return 0.0;
+        }
+        double score0 = toScore(elo0);
+        double score1 = toScore(elo1);
+        return games * (score1 - score0) * (2 * getScore() - score0 - score1) / (2 * variance);
+    }
+
+
+    public synchronized Decision getDecision() {
+        double llr = getLogLikelihoodRatio();
+        if (llr >= upperBound) {
+            return Decision.ACCEPT_ELO1;
+        } else if (llr <= lowerBound) {
+            return Decision.ACCEPT_ELO0;
+        }
+        return Decision.CONTINUE;
+    }
+
+
+    public synchronized double getAverageMoveMs(int engine) {
+        return moves[engine] == 0 ? 0.0 : moveNanos[engine] / 1e6 / moves[engine];
+    }
+
+    public synchronized double getNodesPerSecond(int engine) {
+        return moveNanos[engine] == 0 ? 0.0 : nodes[engine] * 1e9 / moveNanos[engine];
+    }
+
+
+    public synchronized String report(EngineSpec first, EngineSpec second) {
+        return String.format(
+                "%s vs %s: %d games, +%d =%d -%d, score %.3f%n"
+                        + "Elo %+.1f (95%% CI %+.1f to %+.1f)%n"
+                        + "SPRT elo0=%.1f elo1=%.1f: LLR %.2f [%.2f, %.2f] %s%n"
+                        + "%s: %.1f ms/move, %.0f nodes/s%n"
+                        + "%s: %.1f ms/move, %.0f nodes/s",
+                first, second, getGames(), wins, draws, losses, getScore(),
+                getElo(), getEloLower(), getEloUpper(),
+                elo0, elo1, getLogLikelihoodRatio(), lowerBound, upperBound, getDecision(),
+                first, getAverageMoveMs(0), getNodesPerSecond(0),
+                second, getAverageMoveMs(1), getNodesPerSecond(1));
+    }
+
+
+    // Variance of a single game's score
+    private double getVariance() {
+        long games = getGames();
+        if (games == 0) {
+            return 0.0;
+        }
+        double score = getScore();
+        return (wins * Math.pow(1 - score, 2) + draws * Math.pow(0.5 - score, 2) + losses * Math.pow(score, 2))
+                / games;
+    }
+
+    private double getScoreError() {
+        long games = getGames();
+        return games == 0 ? 0.0 : Math.sqrt(getVariance() / games);
+    }
+
+
+    // Infinite when one side won every game
+    static double toElo(double score) {
+        if (score <= 0) {
+            return Double.NEGATIVE_INFINITY;
+        } else if (score >= 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    static double toScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+}
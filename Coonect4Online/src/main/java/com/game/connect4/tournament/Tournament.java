@@ -0,0 +1,193 @@
+package com.game.connect4.tournament;
+
+import com.game.connect4.model.Game;
+import com.game.connect4.model.GameStatus;
+import com.game.connect4.model.Move;
+import com.game.connect4.model.Player;
+import com.game.connect4.service.AIService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+// Headless engine-vs-engine match, for checking that a search change makes the AI stronger
+// rather than just slower:
+//
+// The executable jar keeps the game's classes under BOOT-INF, so run it through Spring Boot's
+// PropertiesLauncher with the class to start in loader.main:
+//
+//   java -Dloader.main=com.game.connect4.tournament.Tournament -cp target/connect4-<version>.jar \
+//        org.springframework.boot.loader.launch.PropertiesLauncher --first=expert --second=expert,budget=500
+//        [--games=1000] [--opening-plies=4] [--seed=1] [--threads=<cores>]
+//        [--elo0=0] [--elo1=10] [--alpha=0.05] [--beta=0.05] [--stop-early]
+//
+// Engines are described as in EngineSpec. Every random opening is played twice with the engines
+// swapping sides, so neither gains from a lopsided opening or from moving first. Openings come
+// from the seed alone, so a rerun plays the same ones. Exits with 0 when the SPRT accepts elo1,
+// 1 when it accepts elo0 and 2 when it is undecided, so it can gate a build; options it cannot
+// read exit with 64 instead. A code change is checked by running the same match against a fixed
+// engine on the old and the new build.
+public class Tournament {
+
+    private static final int PROGRESS_INTERVAL = 100;
+
+    // EX_USAGE from sysexits.h, apart from the SPRT decisions
+    private static final int EXIT_USAGE = 64;
+
+    private static final String USAGE = "Usage: Tournament --first=<engine> --second=<engine> [--games=1000] "
+            + "[--opening-plies=4] [--seed=1] [--threads=n] [--elo0=0] [--elo1=10] "
+            + "[--alpha=0.05] [--beta=0.05] [--stop-early]";
+
+    public static void main(String[] args) throws InterruptedException {
+        EngineSpec first;
+        EngineSpec second;
+        int games;
+        int openingPlies;
+        long seed;
+        int threads;
+        MatchStatistics statistics;
+        Map<String, String> options;
+        try {
+            options = parseOptions(args);
+            if (!options.containsKey("first") || !options.containsKey("second")) {
+                throw new IllegalArgumentException("Both --first and --second are needed");
+            }
+
+            first = EngineSpec.parse(options.get("first"));
+            second = EngineSpec.parse(options.get("second"));
+            games = Integer.parseInt(options.getOrDefault("games", "1000"));
+            openingPlies = Integer.parseInt(options.getOrDefault("opening-plies", "4"));
+            seed = Long.parseLong(options.getOrDefault("seed", "1"));
+            threads = Integer.parseInt(options.getOrDefault("threads",
+                    String.valueOf(Runtime.getRuntime().availableProcessors())));
+            statistics = new MatchStatistics(
+                    Double.parseDouble(options.getOrDefault("elo0", "0")),
+                    Double.parseDouble(options.getOrDefault("elo1", "10")),
+                    Double.parseDouble(options.getOrDefault("alpha", "0.05")),
+                    Double.parseDouble(options.getOrDefault("beta", "0.05")));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException included
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(EXIT_USAGE);
+            return;
+        }
+
+        play(first, second, games, openingPlies, seed, threads, options.containsKey("stop-early"), statistics);
+        System.out.println(statistics.report(first, second));
+
+        switch (statistics.getDecision()) {
+            case ACCEPT_ELO1 -> System.exit(0);
+            case ACCEPT_ELO0 -> System.exit(1);
+            default -> System.exit(2);
+        }
+    }
+
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Options look like --name=value: " + arg);
+            }
+            String[] option = arg.substring(2).split("=", 2);
+            options.put(option[0], option.length == 2 ? option[1] : "");
+        }
+        return options;
+    }
+
+
+    // Plays the games (rounded up to whole pairs) on the given number of threads. With stopEarly,
+    // no new game starts once the SPRT has decided.
+    public static void play(EngineSpec first, EngineSpec second, int games, int openingPlies, long seed,
+                            int threads, boolean stopEarly, MatchStatistics statistics) throws InterruptedException {
+        List<int[]> openings = createOpenings((games + 1) / 2, openingPlies, seed);
+        int totalGames = openings.size() * 2;
+        AtomicInteger next = new AtomicInteger();
+        AtomicBoolean decided = new AtomicBoolean();
+        EngineSpec[] specs = {first, second};
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                // Each thread has its own engines, so games never share a table
+                AIService[] engines = {first.createService(), second.createService()};
+                try {
+                    for (int i = next.getAndIncrement(); i < totalGames && !decided.get(); i = next.getAndIncrement()) {
+                        int result = playGame(openings.get(i / 2), specs, engines, i % 2 == 0, statistics);
+                        long played = statistics.addGame(result);
+                        if (played % PROGRESS_INTERVAL == 0) {
+                            System.out.printf("%d/%d games, score %.3f, LLR %.2f%n",
+                                    played, totalGames, statistics.getScore(), statistics.getLogLikelihoodRatio());
+                        }
+                        if (stopEarly && statistics.getDecision() != MatchStatistics.Decision.CONTINUE) {
+                            decided.set(true);
+                        }
+                    }
+                } finally {
+                    engines[0].shutdown();
+                    engines[1].shutdown();
+                }
+            }, "tournament-" + t);
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+
+    // Random openings of the given length in which nobody has won yet
+    static List<int[]> createOpenings(int count, int plies, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<int[]> openings = new ArrayList<>();
+        while (openings.size() < count) {
+            Game game = new Game(1);
+            int[] opening = new int[plies];
+            for (int ply = 0; ply < plies && game.getStatus() == GameStatus.IN_PROGRESS; ply++) {
+                List<Integer> validMoves = game.getBoard().getValidMoves();
+                opening[ply] = validMoves.get(random.nextInt(validMoves.size()));
+                game.makeMove(opening[ply]);
+            }
+            if (game.getStatus() == GameStatus.IN_PROGRESS) {
+                openings.add(opening);
+            }
+        }
+        return openings;
+    }
+
+
+    // Returns the result for the first engine: 1 for a win, 0 for a draw, -1 for a loss
+    private static int playGame(int[] opening, EngineSpec[] specs, AIService[] engines, boolean firstEngineStarts,
+                                MatchStatistics statistics) {
+        Game game = new Game(specs[0].getDifficultyLevel());
+        for (int column : opening) {
+            game.makeMove(column);
+        }
+
+        while (game.getStatus() == GameStatus.IN_PROGRESS) {
+            // Player.PLAYER is the side that moved first
+            int engine = (game.getCurrentPlayer() == Player.PLAYER) == firstEngineStarts ? 0 : 1;
+            game.setDifficultyLevel(specs[engine].getDifficultyLevel());
+
+            long nodesBefore = engines[engine].getSearchStatistics().getNodes();
+            long start = System.nanoTime();
+            Move move = engines[engine].findBestMove(game);
+            statistics.addMove(engine, System.nanoTime() - start,
+                    engines[engine].getSearchStatistics().getNodes() - nodesBefore);
+            game.makeMove(move.getColumn());
+        }
+
+        if (game.getStatus() == GameStatus.DRAW) {
+            return 0;
+        }
+        boolean starterWon = game.getStatus() == GameStatus.PLAYER_WIN;
+        return starterWon == firstEngineStarts ? 1 : -1;
+    }
+}
@@ -11,6 +11,10 @@ public class Constants {
     public static final int MEDIUM = 3;
     public static final int HARD = 5;
     public static final int EXPERT = 7;
+    // Solves the position exactly, falling back to the Expert search when it takes too long
+    public static final int UNBEATABLE = 8;
+    // Monte Carlo tree search instead of minimax, with the Expert time budget
+    public static final int MONTE_CARLO = 9;
 
     // Evaluation scores
     public static final int WIN_SCORE = 1000000;
@@ -19,4 +23,8 @@ public class Constants {
 
     // Column weights for heuristic evaluation (center columns are more valuable)
     public static final int[] COLUMN_WEIGHTS = {1, 2, 3, 4, 3, 2, 1};
-}
\ No newline at end of file
+
+    // Score of a four-cell window by how many discs one side has in it, counted only while
+    // the opponent has none there (a completed four is scored as a win instead)
+    public static final int[] WINDOW_SCORES = {0, 1, 10, 100, 0};
+}
\ No newline at end of file
@@ -1,6 +1,114 @@
 const gameId = window.location.pathname.split('/')[2];
 
+// Moves, resets and difficulty changes go over the game's WebSocket, which pushes each change back
+// as a small update; while it is not open the page falls back to POSTs and reloads
+let socket = null;
+
+// Version of the game this page shows. Changes can reach the page out of order (a reset from
+// another tab overtaking the moves of a turn), so updates no newer than it are dropped.
+let version = Number(document.querySelector('.game-container').dataset.version || 0);
+
+// Whose turn it is as far as this page knows, so that turning down its move only gives the
+// column buttons back while the player is to move in a game still going
+let finished = document.querySelector('.game-container').dataset.status !== 'IN_PROGRESS';
+let playerToMove = document.querySelector('.game-container').dataset.playerToMove === 'true';
+
+function connect() {
+    const scheme = window.location.protocol === 'https:' ? 'wss' : 'ws';
+    const ws = new WebSocket(`${scheme}://${window.location.host}/game/${gameId}/ws`);
+    ws.onopen = () => { socket = ws; };
+    ws.onclose = () => { socket = null; };
+    ws.onmessage = event => applyUpdate(JSON.parse(event.data));
+}
+
+function send(message) {
+    if (socket && socket.readyState === WebSocket.OPEN) {
+        socket.send(JSON.stringify(message));
+        return true;
+    }
+    return false;
+}
+
+function applyUpdate(update) {
+    if (update.version !== undefined) {
+        if (update.version <= version) {
+            return;
+        }
+        version = update.version;
+    }
+    switch (update.type) {
+        case 'thinking':
+            setStatus('AI Thinking...', false);
+            break;
+        case 'playerMove':
+        case 'aiMove':
+            updateCell(update.row, update.column, update.type === 'playerMove' ? 'player-piece' : 'ai-piece');
+            logAnalysis(update.analysis);
+            playerToMove = update.type === 'aiMove';
+            if (update.status !== 'IN_PROGRESS') {
+                finishGame(update.status);
+            } else if (update.type === 'aiMove') {
+                setStatus('Your Turn', true);
+            } else {
+                setStatus('AI Thinking...', false);
+            }
+            break;
+        case 'reset':
+            finished = false;
+            playerToMove = true;
+            document.querySelectorAll('.board-cell div').forEach(cell => { cell.className = 'empty-cell'; });
+            document.getElementById('move-log').innerHTML = '';
+            document.getElementById('hint').disabled = false;
+            setStatus('Your Turn', true);
+            break;
+        case 'difficulty':
+            document.getElementById('difficulty').value = update.level;
+            break;
+        case 'moveRefused':
+            alert(update.message);
+            if (playerToMove && !finished) {
+                setStatus('Your Turn', true);
+            }
+            break;
+        case 'error':
+            alert(update.message);
+            break;
+    }
+}
+
+function setStatus(text, playerToMove) {
+    document.querySelector('.game-status').textContent = text;
+    document.querySelectorAll('.column-buttons button').forEach(button => { button.disabled = !playerToMove; });
+}
+
+function logAnalysis(analysis) {
+    if (analysis) {
+        const line = document.createElement('li');
+        line.textContent = analysis;
+        document.getElementById('move-log').appendChild(line);
+    }
+}
+
+function finishGame(status) {
+    finished = true;
+    const results = { PLAYER_WIN: 'You Won!', AI_WIN: 'AI Won!', DRAW: 'Draw!' };
+    setStatus(results[status], false);
+    document.getElementById('hint').disabled = true;
+    alert("Game Finished");
+    setTimeout(() => {
+        window.location.href = `/game/${gameId}/analysis`;
+    }, 1500);
+}
+
+connect();
+
 function makeMove(column) {
+    stopHint();
+    document.getElementById('hint').textContent = 'Hint';
+    document.querySelectorAll('.column-buttons button.hinted').forEach(button => button.classList.remove('hinted'));
+    if (send({ type: 'move', column: Number(column) })) {
+        return;
+    }
     fetch(`/game/${gameId}/move`, {
         method: 'POST',
         headers: { 'Content-Type': 'application/x-www-form-urlencoded' },
@@ -27,6 +135,36 @@ function makeMove(column) {
     });
 }
 
+// Hints arrive as Server-Sent Events, ever deeper, until the server's time cap
+let hintSource = null;
+
+function showHint() {
+    stopHint();
+    const hintButton = document.getElementById('hint');
+    hintSource = new EventSource(`/game/${gameId}/hint`);
+    hintSource.addEventListener('hint', event => {
+        const hint = JSON.parse(event.data);
+        hintButton.textContent = `Hint: column ${hint.column + 1}` + (hint.depth > 0 ? ` (depth ${hint.depth})` : '');
+        document.querySelectorAll('.column-buttons button').forEach(button => {
+            button.classList.toggle('hinted', Number(button.getAttribute('data-col')) === hint.column);
+        });
+    });
+    ['done', 'busy', 'unavailable'].forEach(name => hintSource.addEventListener(name, event => {
+        if (event.data) {
+            hintButton.textContent = event.data;
+        }
+        stopHint();
+    }));
+    hintSource.onerror = stopHint;
+}
+
+function stopHint() {
+    if (hintSource) {
+        hintSource.close();
+        hintSource = null;
+    }
+}
+
 function updateBoard(move, pieceClass) {
     updateCell(move.row, move.column, pieceClass);
 }
@@ -39,6 +177,9 @@ function updateCell(row, col, pieceClass) {
 }
 
 function resetGame() {
+    if (send({ type: 'reset' })) {
+        return;
+    }
     const form = document.createElement('form');
     form.method = 'POST';
     form.action = `/game/${gameId}/reset`;
@@ -48,6 +189,9 @@ function resetGame() {
 
 function changeDifficulty() {
     const difficulty = document.getElementById('difficulty').value;
+    if (send({ type: 'difficulty', level: Number(difficulty) })) {
+        return;
+    }
     const form = document.createElement('form');
     form.method = 'POST';
     form.action = `/game/${gameId}/difficulty`;
@@ -0,0 +1,82 @@
+package com.game.connect4;
+
+import com.game.connect4.config.AIProperties;
+import com.game.connect4.model.Board;
+import com.game.connect4.model.Move;
+import com.game.connect4.model.Player;
+import com.game.connect4.service.AIService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+
+// Builders the unit tests share: small single-threaded AI settings, positions from a list of
+// columns, and random positions nobody has won yet
+public final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+
+    // Small tables and no parallel search, so tests start fast and search the same way every run
+    public static AIProperties aiProperties() {
+        AIProperties properties = new AIProperties();
+        properties.setTranspositionTableMb(1);
+        properties.setSolverTableMb(1);
+        properties.setSearchThreads(1);
+        return properties;
+    }
+
+
+    public static AIService aiService() {
+        return new AIService(aiProperties());
+    }
+
+
+    // The columns played in turn, the player first
+    public static Board play(int... columns) {
+        Board board = new Board();
+        Player player = Player.PLAYER;
+        for (int column : columns) {
+            board.makeMove(column, player);
+            player = player.getOpponent();
+        }
+        return board;
+    }
+
+
+    // The same game as a move history, as a finished game hands it to the review
+    public static List<Move> moves(int... columns) {
+        List<Move> moves = new ArrayList<>();
+        Player player = Player.PLAYER;
+        for (int column : columns) {
+            moves.add(new Move(column, 0, player));
+            player = player.getOpponent();
+        }
+        return moves;
+    }
+
+
+    // plies random moves from the empty board, the player first; null when one of them wins
+    public static Board randomBoard(Random random, int plies) {
+        Board board = new Board();
+        Player player = Player.PLAYER;
+        for (int i = 0; i < plies; i++) {
+            List<Integer> validMoves = board.getValidMoves();
+            int column = validMoves.get(random.nextInt(validMoves.size()));
+            int row = board.makeMove(column, player);
+            if (board.checkWin(row, column, player)) {
+                return null;
+            }
+            player = player.getOpponent();
+        }
+        return board;
+    }
+
+
+    // For boards built by play or randomBoard
+    public static Player sideToMove(Board board) {
+        return board.getMoveCount() % 2 == 0 ? Player.PLAYER : Player.AI;
+    }
+}
@@ -0,0 +1,93 @@
+package com.game.connect4.ai;
+
+import com.game.connect4.model.Board;
+import com.game.connect4.model.Player;
+import com.game.connect4.model.SearchResult;
+import com.game.connect4.utils.Constants;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static com.game.connect4.TestFixtures.play;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MonteCarloEngineTests {
+
+    private static final long BUDGET_MS = 10_000;
+
+    @Test
+    void takesAnImmediateWin() {
+        MonteCarloEngine engine = new MonteCarloEngine(null, 2000, 4, 1_000_000);
+        // The player to move has three in column 0
+        Board board = play(0, 6, 0, 6, 0, 5);
+
+        SearchResult result = engine.search(board, Constants.MONTE_CARLO, Player.PLAYER, null, false,
+                new SearchContext(BUDGET_MS));
+        assertEquals(0, result.getBestColumn());
+        assertEquals(Constants.WIN_SCORE, result.getBestScore());
+    }
+
+
+    @Test
+    void blocksAnImmediateLoss() {
+        MonteCarloEngine engine = new MonteCarloEngine(null, 2000, 4, 1_000_000);
+        // The AI has three in the bottom row, open on the right only
+        Board board = play(0, 1, 0, 2, 6, 3);
+
+        SearchResult result = engine.search(board, Constants.MONTE_CARLO, Player.PLAYER, null, false,
+                new SearchContext(BUDGET_MS));
+        assertEquals(4, result.getBestColumn());
+    }
+
+
+    @Test
+    void parallelSearchStopsAtThePlayoutLimit() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            MonteCarloEngine engine = new MonteCarloEngine(pool, 20_000, 4, 1_000_000);
+            Board board = play(3, 3);
+            SearchContext context = new SearchContext(BUDGET_MS);
+
+            SearchResult result = engine.search(board, Constants.MONTE_CARLO, Player.PLAYER, "game", true, context);
+            assertEquals(20_000, context.getNodes());
+            assertTrue(board.isValidMove(result.getBestColumn()));
+            assertTrue(result.getDepth() > 1);
+
+            // The next move of the same game starts from the tree of this one
+            board.makeMove(result.getBestColumn(), Player.PLAYER);
+            board.makeMove(3, Player.AI);
+            SearchResult next = engine.search(board, Constants.MONTE_CARLO, Player.PLAYER, "game", true,
+                    new SearchContext(BUDGET_MS));
+            assertTrue(board.isValidMove(next.getBestColumn()));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+
+    @Test
+    void backgroundSearchesLeaveTheKeptTreeAlone() {
+        MonteCarloEngine engine = new MonteCarloEngine(null, 2000, 4, 1_000_000);
+        Board board = play(3, 3);
+        engine.search(board, Constants.MONTE_CARLO, Player.PLAYER, "game", true, new SearchContext(BUDGET_MS));
+        long kept = engine.getTreeNodes();
+        assertTrue(kept > 1);
+
+        // A ponder search of a reply for the same game
+        board.makeMove(2, Player.PLAYER);
+        engine.search(board, Constants.MONTE_CARLO, Player.AI, "game", false, new SearchContext(BUDGET_MS));
+        assertEquals(kept, engine.getTreeNodes());
+    }
+
+
+    @Test
+    void treesOverTheNodeCapAreNotKept() {
+        MonteCarloEngine engine = new MonteCarloEngine(null, 2000, 4, 100);
+        for (String game : new String[]{"first", "second"}) {
+            engine.search(play(3, 3), Constants.MONTE_CARLO, Player.PLAYER, game, true,
+                    new SearchContext(BUDGET_MS));
+            assertEquals(0, engine.getTreeNodes());
+        }
+    }
+}
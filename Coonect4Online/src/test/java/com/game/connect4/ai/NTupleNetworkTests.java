@@ -0,0 +1,76 @@
+package com.game.connect4.ai;
+
+import com.game.connect4.model.Board;
+import com.game.connect4.model.Player;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.game.connect4.TestFixtures.randomBoard;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NTupleNetworkTests {
+
+    private static List<Board> randomBoards(long seed, int count) {
+        Random random = new Random(seed);
+        List<Board> boards = new ArrayList<>();
+        while (boards.size() < count) {
+            Board board = randomBoard(random, random.nextInt(30));
+            if (board != null) {
+                boards.add(board);
+            }
+        }
+        return boards;
+    }
+
+
+    @Test
+    void writtenNetworkReadsBackTheSame(@TempDir Path directory) throws IOException {
+        NTupleTrainer trainer = new NTupleTrainer(3);
+        for (int game = 0; game < 500; game++) {
+            trainer.playGame();
+        }
+        NTupleNetwork network = trainer.toNetwork();
+        Path path = directory.resolve("weights.bin");
+        network.write(path);
+        NTupleNetwork read = NTupleNetwork.read(path);
+
+        boolean anyNonZero = false;
+        for (Board board : randomBoards(7, 200)) {
+            assertEquals(network.evaluate(board), read.evaluate(board));
+            anyNonZero |= network.evaluate(board) != 0;
+        }
+        assertTrue(anyNonZero);
+    }
+
+
+    @Test
+    void bundledNetworkScoresMirroredPositionsAlike() {
+        NTupleNetwork network = NTupleNetwork.bundled();
+        for (Board board : randomBoards(11, 200)) {
+            long first = board.getBitboard(Player.PLAYER);
+            long second = board.getBitboard(Player.AI);
+            assertEquals(network.evaluate(first, second),
+                    network.evaluate(Bitboards.mirror(first), Bitboards.mirror(second)));
+        }
+    }
+
+
+    @Test
+    void bundledNetworkValuesTheCentre() {
+        NTupleNetwork network = NTupleNetwork.bundled();
+        Board centre = new Board();
+        centre.makeMove(3, Player.PLAYER);
+        Board edge = new Board();
+        edge.makeMove(0, Player.PLAYER);
+
+        // From the AI's side, the player taking the centre is worse than the player taking an edge
+        assertTrue(network.evaluate(centre) < network.evaluate(edge));
+    }
+}
@@ -0,0 +1,89 @@
+package com.game.connect4.ai;
+
+import com.game.connect4.model.Board;
+import com.game.connect4.model.Player;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.game.connect4.TestFixtures.randomBoard;
+import static com.game.connect4.TestFixtures.sideToMove;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class OpeningBookTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void probesFindPositionsAndTheirMirrorImages() throws IOException {
+        Random random = new Random(3);
+        TranspositionTable table = new TranspositionTable(4);
+        List<long[]> positions = new ArrayList<>();
+        List<Long> records = new ArrayList<>();
+
+        while (positions.size() < 50) {
+            long[] position = randomPosition(random, 24);
+            if (position == null || Bitboards.mirror(position[1]) == position[1]) {
+                continue;
+            }
+            Solver solver = new Solver(table, SearchContext.withoutDeadline());
+            int moveCount = Long.bitCount(position[1]);
+            int score = solver.solve(position[0], position[1], moveCount);
+            int column = solver.findColumn(position[0], position[1], moveCount, score);
+
+            // Books only hold the canonical side of each mirror pair
+            long[] canonical = position[0] + position[1] == OpeningBook.canonicalKey(position[0], position[1])
+                    ? position : new long[]{Bitboards.mirror(position[0]), Bitboards.mirror(position[1])};
+            int canonicalColumn = canonical == position ? column : 6 - column;
+
+            positions.add(new long[]{position[0], position[1], score, column});
+            records.add(OpeningBook.record(canonical[0] + canonical[1], score, canonicalColumn));
+        }
+
+        Path file = directory.resolve("book.bin");
+        OpeningBook.write(file, records.stream().mapToLong(Long::longValue).toArray(), 24);
+        OpeningBook book = new OpeningBook(file);
+        assertFalse(book.isLoaded());
+
+        for (long[] position : positions) {
+            long record = book.probe(position[0], position[1]);
+            assertNotEquals(0, record);
+            assertEquals(position[2], OpeningBook.score(record));
+            assertEquals(position[3], OpeningBook.column(record));
+
+            long mirrored = book.probe(Bitboards.mirror(position[0]), Bitboards.mirror(position[1]));
+            assertEquals(position[2], OpeningBook.score(mirrored));
+            assertEquals(6 - position[3], OpeningBook.column(mirrored));
+        }
+
+        assertEquals(0, book.probe(0L, 0L));
+    }
+
+
+    @Test
+    void missingFileLeavesTheBookEmpty() {
+        OpeningBook book = new OpeningBook(directory.resolve("missing.bin"));
+        assertEquals(0, book.probe(0L, 0L));
+        assertFalse(book.isLoaded());
+    }
+
+
+    // {discs of the side to move, all discs} after random moves, or null if someone won
+    private static long[] randomPosition(Random random, int plies) {
+        Board board = randomBoard(random, plies);
+        if (board == null) {
+            return null;
+        }
+        Player player = sideToMove(board);
+        long position = board.getBitboard(player);
+        return new long[]{position, position | board.getBitboard(player.getOpponent())};
+    }
+}
@@ -0,0 +1,80 @@
+package com.game.connect4.ai;
+
+import com.game.connect4.model.Board;
+import com.game.connect4.model.Player;
+import com.game.connect4.utils.Constants;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static com.game.connect4.TestFixtures.randomBoard;
+import static com.game.connect4.TestFixtures.sideToMove;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SolverTests {
+
+    private static final int SIZE = Constants.ROWS * Constants.COLUMNS;
+
+    @Test
+    void solverMatchesExhaustiveSearchOnLatePositions() {
+        Random random = new Random(11);
+        TranspositionTable table = new TranspositionTable(4);
+        int checked = 0;
+
+        while (checked < 200) {
+            Board board = randomBoard(random, 30 + random.nextInt(10));
+            if (board == null) {
+                continue;
+            }
+            Player player = sideToMove(board);
+
+            long position = board.getBitboard(player);
+            long mask = position | board.getBitboard(player.getOpponent());
+            Solver solver = new Solver(table, SearchContext.withoutDeadline());
+
+            int expected = exhaustive(board, player);
+            int score = solver.solve(position, mask, board.getMoveCount());
+            assertEquals(expected, score, () -> "Wrong score for\n" + board);
+
+            // The chosen column must keep the proven score
+            int column = solver.findColumn(position, mask, board.getMoveCount(), score);
+            int row = board.makeSearchMove(column, player);
+            int after = board.checkWin(row, column, player)
+                    ? (SIZE + 1 - (board.getMoveCount() - 1)) / 2
+                    : -exhaustive(board, player.getOpponent());
+            board.undoSearchMove();
+            assertEquals(score, after, () -> "Column " + column + " does not keep the score on\n" + board);
+
+            checked++;
+        }
+    }
+
+
+    @Test
+    void pliesToEndCountsDiscsOfBothSides() {
+        // Side to move after 6 plies wins with its 4th disc on the next ply
+        assertEquals(1, Solver.pliesToEnd((SIZE + 1 - 6) / 2, 6));
+        // Side to move after 7 plies loses to the opponent's 5th disc, two plies away
+        assertEquals(2, Solver.pliesToEnd(-(SIZE + 2) / 2 + 5, 7));
+        assertEquals(SIZE - 20, Solver.pliesToEnd(0, 20));
+    }
+
+
+    // Plain negamax over every move, in the solver's scoring
+    private static int exhaustive(Board board, Player player) {
+        if (board.isFull()) {
+            return 0;
+        }
+
+        int best = -SIZE;
+        for (int column : board.getValidMoves()) {
+            int row = board.makeSearchMove(column, player);
+            int score = board.checkWin(row, column, player)
+                    ? (SIZE + 1 - (board.getMoveCount() - 1)) / 2
+                    : -exhaustive(board, player.getOpponent());
+            board.undoSearchMove();
+            best = Math.max(best, score);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,86 @@
+package com.game.connect4.ai;
+
+import com.game.connect4.model.Board;
+import com.game.connect4.model.Player;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static com.game.connect4.TestFixtures.play;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TacticsTests {
+
+    private static long mask(Board board) {
+        return board.getBitboard(Player.PLAYER) | board.getBitboard(Player.AI);
+    }
+
+
+    @Test
+    void findsWinsAndForcedBlocks() {
+        // The player to move has three in column 0
+        Board win = play(0, 6, 0, 6, 0, 5);
+        assertEquals(0, Tactics.firstColumn(Tactics.winningMoves(win.getBitboard(Player.PLAYER), mask(win))));
+
+        // The AI has three in the bottom row, open on the right only
+        Board block = play(0, 1, 0, 2, 6, 3);
+        long nonLosing = Tactics.nonLosingMoves(block.getBitboard(Player.PLAYER), mask(block));
+        assertEquals(Bitboards.playableCells(mask(block)) & Bitboards.columnMask(4), nonLosing);
+
+        // The AI has three in the bottom row, open on both sides
+        Board lost = play(0, 2, 0, 3, 6, 4);
+        assertEquals(0, Tactics.nonLosingMoves(lost.getBitboard(Player.PLAYER), mask(lost)));
+    }
+
+
+    @Test
+    void findsDoubleThreats() {
+        // The player has two in the bottom row; a third next to them is open on both sides
+        Board board = play(2, 6, 3, 6);
+        long position = board.getBitboard(Player.PLAYER);
+        long mask = mask(board);
+        long threats = Tactics.doubleThreatMoves(position, mask, Tactics.nonLosingMoves(position, mask));
+
+        long expected = Bitboards.playableCells(mask) & (Bitboards.columnMask(1) | Bitboards.columnMask(4));
+        assertEquals(expected, threats);
+        assertEquals(4, Tactics.firstColumn(threats));
+    }
+
+
+    @Test
+    void everyDoubleThreatIsAProvenWin() {
+        Random random = new Random(7);
+        TranspositionTable table = new TranspositionTable(4);
+        int checked = 0;
+
+        while (checked < 50) {
+            Board board = new Board();
+            Player player = Player.PLAYER;
+            int plies = 16 + random.nextInt(10);
+            boolean finished = false;
+            for (int i = 0; i < plies && !finished; i++) {
+                List<Integer> validMoves = board.getValidMoves();
+                int column = validMoves.get(random.nextInt(validMoves.size()));
+                int row = board.makeMove(column, player);
+                finished = board.checkWin(row, column, player);
+                player = player.getOpponent();
+            }
+            long position = board.getBitboard(player);
+            long mask = mask(board);
+            if (finished || Tactics.canWinNext(position, mask)) {
+                continue;
+            }
+
+            long threats = Tactics.doubleThreatMoves(position, mask, Tactics.nonLosingMoves(position, mask));
+            for (long moves = threats; moves != 0; moves &= moves - 1) {
+                long move = Long.lowestOneBit(moves);
+                Solver solver = new Solver(table, SearchContext.withoutDeadline());
+                int score = solver.solve(position ^ mask, mask | move, board.getMoveCount() + 1);
+                assertTrue(score < 0, () -> "Double threat that does not win on\n" + board);
+                checked++;
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.game.connect4.ai;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TranspositionTableTests {
+
+    @Test
+    void deepEntriesStayWhileShallowOnesStillGetStored() {
+        TranspositionTable table = new TranspositionTable(1);
+        long stride = table.capacity();
+        long deep = 12;
+        long shallow = deep + stride;
+        long later = deep + 2 * stride;
+
+        table.store(deep, 10, TranspositionTable.EXACT, 50, 3);
+        table.store(shallow, 2, TranspositionTable.LOWER_BOUND, -7, 1);
+        assertEquals(50, TranspositionTable.score(table.probe(deep)));
+        assertEquals(-7, TranspositionTable.score(table.probe(shallow)));
+
+        // The second slot of the pair always takes the latest result
+        table.store(later, 4, TranspositionTable.UPPER_BOUND, 9, 5);
+        assertEquals(10, TranspositionTable.depth(table.probe(deep)));
+        assertEquals(5, TranspositionTable.move(table.probe(later)));
+        assertEquals(0, table.probe(shallow));
+
+        // A search at least as deep takes the first slot over
+        table.store(shallow, 10, TranspositionTable.EXACT, 1, 2);
+        assertEquals(0, table.probe(deep));
+        assertEquals(1, TranspositionTable.score(table.probe(shallow)));
+    }
+}
@@ -0,0 +1,187 @@
+package com.game.connect4.controller;
+
+import com.game.connect4.config.AIProperties;
+import com.game.connect4.config.SessionProperties;
+import com.game.connect4.model.Game;
+import com.game.connect4.repository.InMemoryGameRepository;
+import com.game.connect4.service.AIService;
+import com.game.connect4.service.AnalysisService;
+import com.game.connect4.service.GameReviewService;
+import com.game.connect4.service.GameService;
+import com.game.connect4.service.HintService;
+import com.game.connect4.service.PonderService;
+import com.game.connect4.service.SearchBudgetScheduler;
+import com.game.connect4.utils.Constants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.view.InternalResourceViewResolver;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.game.connect4.TestFixtures.aiProperties;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class GameControllerTests {
+
+    private final AIProperties properties = createProperties();
+    private final AIService aiService = new AIService(properties);
+    private final GameService gameService = new GameService(aiService, new AnalysisService(),
+            new PonderService(aiService, properties),
+            new InMemoryGameRepository(new SessionProperties(), new SimpleMeterRegistry()));
+    private final ThreadPoolExecutor moveExecutor =
+            new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+    private final HintService hintService = new HintService(gameService, aiService, properties);
+    private final GameReviewService reviewService = new GameReviewService(aiService, properties);
+    private final MockMvc mockMvc = MockMvcBuilders
+            .standaloneSetup(new GameController(gameService, moveExecutor, properties,
+                    SearchBudgetScheduler.unscheduled(), hintService, reviewService))
+            // Page views are only resolved, not rendered, so the tests can read their models
+            .setViewResolvers(new InternalResourceViewResolver("/templates/", ".html"))
+            .build();
+
+    private static AIProperties createProperties() {
+        AIProperties properties = aiProperties();
+        properties.setHintTimeMs(200);
+        return properties;
+    }
+
+
+    @AfterEach
+    void shutdown() {
+        moveExecutor.shutdownNow();
+        hintService.shutdown();
+        reviewService.shutdown();
+    }
+
+
+    @Test
+    void moveIsPlayedOffTheRequestThread() throws Exception {
+        Game game = gameService.createGame(Constants.MEDIUM);
+
+        MvcResult started = mockMvc.perform(post("/game/{id}/move", game.getId()).param("column", "3"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.playerMove.column").value(3))
+                .andExpect(jsonPath("$.aiMove").exists());
+        assertEquals(2, game.getBoard().getMoveCount());
+    }
+
+
+    @Test
+    void fullExecutorRejectsWithServiceUnavailable() throws Exception {
+        Game game = gameService.createGame(Constants.MEDIUM);
+
+        // Occupy the only thread and the only queue slot
+        CountDownLatch release = new CountDownLatch(1);
+        moveExecutor.execute(() -> awaitQuietly(release));
+        moveExecutor.execute(() -> awaitQuietly(release));
+
+        try {
+            MvcResult started = mockMvc.perform(post("/game/{id}/move", game.getId()).param("column", "3"))
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(started))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(jsonPath("$.success").value(false));
+            assertEquals(0, game.getBoard().getMoveCount());
+        } finally {
+            release.countDown();
+        }
+    }
+
+
+    @Test
+    void moveStillQueuedAtTheTimeoutIsDropped() throws Exception {
+        Game game = gameService.createGame(Constants.MEDIUM);
+
+        // Keep the only thread busy so the move waits in the queue
+        CountDownLatch release = new CountDownLatch(1);
+        moveExecutor.execute(() -> awaitQuietly(release));
+
+        MvcResult started = mockMvc.perform(post("/game/{id}/move", game.getId()).param("column", "3"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MockAsyncContext asyncContext = (MockAsyncContext) started.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.message").value("The AI took too long, please try again"));
+
+        // Once the executor gets to it, the dropped move leaves the game alone
+        release.countDown();
+        moveExecutor.shutdown();
+        assertTrue(moveExecutor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(0, game.getBoard().getMoveCount());
+    }
+
+
+    @Test
+    void hintStreamsDeeperSuggestionsUntilTheTimeCap() throws Exception {
+        Game game = gameService.createGame(Constants.MEDIUM);
+
+        MvcResult started = mockMvc.perform(get("/game/{id}/hint", game.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        started.getAsyncResult(10_000);
+
+        String events = started.getResponse().getContentAsString();
+        assertTrue(events.contains("event:hint\ndata:{\"column\":3,\"score\":"), events);
+        assertTrue(events.contains("\"depth\":2}"), events);
+        assertTrue(events.endsWith("event:done\ndata:\n\n"), events);
+        assertEquals(0, game.getBoard().getMoveCount());
+    }
+
+
+    @Test
+    void pagesRenderACopyTakenUnderTheLock() throws Exception {
+        Game game = gameService.createGame(Constants.MEDIUM);
+        game.makeMove(3);
+        game.addAnalysis("Player dropped in column 3");
+
+        for (String page : new String[]{"/game/{id}", "/game/{id}/analysis"}) {
+            MvcResult result = mockMvc.perform(get(page, game.getId())).andReturn();
+            Game rendered = (Game) result.getModelAndView().getModel().get("game");
+            assertEquals(1, rendered.getBoard().getMoveCount());
+            assertEquals(game.getVersion(), rendered.getVersion());
+
+            // A reset while the template runs leaves the copy alone
+            gameService.resetGame(game.getId());
+            assertEquals(1, rendered.getBoard().getMoveHistory().size());
+            assertEquals(1, rendered.getGameAnalysis().size());
+            game.makeMove(3);
+            game.addAnalysis("Player dropped in column 3");
+        }
+    }
+
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
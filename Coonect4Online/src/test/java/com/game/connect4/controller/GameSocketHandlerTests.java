@@ -0,0 +1,221 @@
+package com.game.connect4.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.connect4.model.Game;
+import com.game.connect4.service.GameService;
+import com.game.connect4.utils.Constants;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class GameSocketHandlerTests {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private ThreadPoolExecutor moveExecutor;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // The handshake can complete before the server has added the session to the game's channel,
+    // so wait for the answer to a first message, which only comes once it has
+    private WebSocketSession connect(Game game, BlockingQueue<JsonNode> updates) throws Exception {
+        WebSocketSession session = new StandardWebSocketClient().execute(new TextWebSocketHandler() {
+            @Override
+            protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+                updates.add(objectMapper.readTree(message.getPayload()));
+            }
+        }, "ws://localhost:" + port + "/game/" + game.getId() + "/ws").get(5, TimeUnit.SECONDS);
+        session.sendMessage(new TextMessage("{}"));
+        assertEquals("error", nextUpdate(updates).path("type").asText());
+        return session;
+    }
+
+
+    private static JsonNode nextUpdate(BlockingQueue<JsonNode> updates) throws InterruptedException {
+        JsonNode update = updates.poll(10, TimeUnit.SECONDS);
+        assertNotNull(update, "No update pushed");
+        return update;
+    }
+
+
+    @Test
+    void movesArePushedAsUpdates() throws Exception {
+        Game game = gameService.createGame(Constants.EASY);
+        BlockingQueue<JsonNode> updates = new LinkedBlockingQueue<>();
+        BlockingQueue<JsonNode> watcherUpdates = new LinkedBlockingQueue<>();
+        WebSocketSession session = connect(game, updates);
+        WebSocketSession watcher = connect(game, watcherUpdates);
+        try {
+            session.sendMessage(new TextMessage("{\"type\":\"move\",\"column\":3}"));
+            assertEquals("thinking", nextUpdate(updates).path("type").asText());
+
+            JsonNode playerMove = nextUpdate(updates);
+            assertEquals("playerMove", playerMove.path("type").asText());
+            assertEquals(3, playerMove.path("column").asInt());
+            assertEquals(5, playerMove.path("row").asInt());
+            assertEquals("IN_PROGRESS", playerMove.path("status").asText());
+
+            JsonNode aiMove = nextUpdate(updates);
+            assertEquals("aiMove", aiMove.path("type").asText());
+            assertEquals(2, game.getBoard().getMoveCount());
+
+            // Another page open on the game sees both moves
+            assertEquals("playerMove", nextUpdate(watcherUpdates).path("type").asText());
+            assertEquals(aiMove, nextUpdate(watcherUpdates));
+
+            // Only the sender hears about an illegal move, and the board is left alone
+            session.sendMessage(new TextMessage("{\"type\":\"move\",\"column\":7}"));
+            assertEquals("thinking", nextUpdate(updates).path("type").asText());
+            assertEquals("moveRefused", nextUpdate(updates).path("type").asText());
+            assertEquals(2, game.getBoard().getMoveCount());
+
+            session.sendMessage(new TextMessage("{\"type\":\"reset\"}"));
+            assertEquals("reset", nextUpdate(updates).path("type").asText());
+            assertEquals("reset", nextUpdate(watcherUpdates).path("type").asText());
+            assertEquals(0, game.getBoard().getMoveCount());
+            assertNull(watcherUpdates.poll(), "The watcher heard the sender's error");
+        } finally {
+            session.close();
+            watcher.close();
+        }
+    }
+
+
+    @Test
+    void refusedRequestsOnlyAnswerTheSender() throws Exception {
+        Game game = gameService.createGame(Constants.EASY);
+        BlockingQueue<JsonNode> updates = new LinkedBlockingQueue<>();
+        WebSocketSession session = connect(game, updates);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            session.sendMessage(new TextMessage("not json"));
+            assertEquals("Unknown message", nextUpdate(updates).path("message").asText());
+
+            session.sendMessage(new TextMessage("{\"type\":\"difficulty\",\"level\":42}"));
+            // Not an answer to a move, so the page keeps its column buttons as they are
+            JsonNode badLevel = nextUpdate(updates);
+            assertEquals("error", badLevel.path("type").asText());
+            assertEquals("Unknown difficulty level", badLevel.path("message").asText());
+            assertEquals(Constants.EASY, game.getDifficultyLevel());
+
+            // Every move thread busy and the queue full: the move is turned away without touching the game.
+            // Idle threads left by earlier tests take tasks off the queue as it fills, so wait for all of
+            // them to be held before filling it up to the first rejection.
+            for (int i = 0; i < moveExecutor.getMaximumPoolSize(); i++) {
+                moveExecutor.execute(() -> awaitQuietly(release));
+            }
+            long waitUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (moveExecutor.getActiveCount() < moveExecutor.getMaximumPoolSize()) {
+                assertTrue(System.nanoTime() < waitUntil, "Move threads never all got busy");
+                Thread.sleep(10);
+            }
+            assertThrows(RejectedExecutionException.class, () -> {
+                while (true) {
+                    moveExecutor.execute(() -> awaitQuietly(release));
+                }
+            });
+            session.sendMessage(new TextMessage("{\"type\":\"move\",\"column\":3}"));
+            JsonNode busy = nextUpdate(updates);
+            assertEquals("moveRefused", busy.path("type").asText());
+            assertEquals("The server is busy, please try again", busy.path("message").asText());
+            assertEquals(0, game.getBoard().getMoveCount());
+        } finally {
+            release.countDown();
+            session.close();
+        }
+    }
+
+
+    @Test
+    void pagesDropMovesOvertakenByAReset() throws Exception {
+        Game game = gameService.createGame(Constants.EASY);
+        BlockingQueue<JsonNode> updates = new LinkedBlockingQueue<>();
+        BlockingQueue<JsonNode> watcherUpdates = new LinkedBlockingQueue<>();
+        WebSocketSession session = connect(game, updates);
+        WebSocketSession watcher = connect(game, watcherUpdates);
+        PageModel page = new PageModel(game.getVersion());
+        PageModel watcherPage = new PageModel(game.getVersion());
+        try {
+            for (int round = 0; round < 20; round++) {
+                // The reset lands before or after the turn; either way each page gets both moves and the reset
+                session.sendMessage(new TextMessage("{\"type\":\"move\",\"column\":3}"));
+                watcher.sendMessage(new TextMessage("{\"type\":\"reset\"}"));
+                for (int changes = 0; changes < 3; ) {
+                    changes += page.apply(nextUpdate(updates)) ? 1 : 0;
+                }
+                for (int changes = 0; changes < 3; changes++) {
+                    watcherPage.apply(nextUpdate(watcherUpdates));
+                }
+
+                int discs = game.getBoard().getMoveCount();
+                assertEquals(discs, page.discs, "Sender shows a stale board in round " + round);
+                assertEquals(discs, watcherPage.discs, "Watcher shows a stale board in round " + round);
+            }
+        } finally {
+            session.close();
+            watcher.close();
+        }
+    }
+
+
+    // What game.js keeps of the board: the discs on it, given the updates it did not drop
+    private static class PageModel {
+        private long version;
+        private int discs;
+
+        PageModel(long version) {
+            this.version = version;
+        }
+
+        // True for an update that changes the game, applied or dropped as stale
+        boolean apply(JsonNode update) {
+            if (!update.has("version")) {
+                return false;
+            }
+            if (update.path("version").asLong() > version) {
+                version = update.path("version").asLong();
+                switch (update.path("type").asText()) {
+                    case "playerMove", "aiMove" -> discs++;
+                    case "reset" -> discs = 0;
+                    default -> {
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.game.connect4.repository;
+
+import com.game.connect4.config.SessionProperties;
+import com.game.connect4.model.Game;
+import com.game.connect4.model.GameStatus;
+import com.game.connect4.utils.Constants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileGameRepositoryTests {
+
+    @TempDir
+    Path journalDir;
+
+    private FileGameRepository open(int maxSegments) throws IOException {
+        SessionProperties properties = new SessionProperties();
+        properties.setJournalDir(journalDir.toString());
+        properties.setJournalSegmentBytes(256);
+        properties.setJournalMaxSegments(maxSegments);
+        return new FileGameRepository(properties, new SimpleMeterRegistry());
+    }
+
+
+    @Test
+    void gamesSurviveARestart() throws IOException {
+        FileGameRepository repository = open(100);
+        Random random = new Random(11);
+        List<Game> games = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Game game = new Game(1 + random.nextInt(Constants.UNBEATABLE));
+            repository.save(game);
+            int plies = random.nextInt(43);
+            for (int ply = 0; ply < plies && game.getStatus() == GameStatus.IN_PROGRESS; ply++) {
+                List<Integer> validMoves = game.getBoard().getValidMoves();
+                int column = validMoves.get(random.nextInt(validMoves.size()));
+                repository.withLock(game.getId(), locked -> locked.makeMove(column));
+                repository.update(game);
+                // Flush part way through some games, so their moves span several records
+                if (random.nextInt(8) == 0) {
+                    repository.flush();
+                }
+            }
+            games.add(game);
+        }
+        repository.delete(games.get(0).getId());
+        repository.close();
+
+        FileGameRepository restored = open(100);
+        assertEquals(games.size() - 1, restored.size());
+        assertNull(restored.findById(games.get(0).getId()));
+        for (Game game : games.subList(1, games.size())) {
+            Game copy = restored.findById(game.getId());
+            assertNotNull(copy);
+            assertEquals(game.getDifficultyLevel(), copy.getDifficultyLevel());
+            assertEquals(game.getStatus(), copy.getStatus());
+            assertEquals(game.getCurrentPlayer(), copy.getCurrentPlayer());
+            assertEquals(game.getBoard().getHash(), copy.getBoard().getHash());
+            assertEquals(game.getBoard().getMoveCount(), copy.getBoard().getMoveCount());
+        }
+        restored.close();
+    }
+
+
+    @Test
+    void snapshotTakesTensOfBytes() {
+        Game game = new Game(Constants.HARD);
+        int[] columns = {3, 3, 4, 2, 5};
+        for (int column : columns) {
+            game.makeMove(column);
+        }
+
+        byte[] record = GameRecords.snapshot(game);
+        assertEquals(20 + 3, record.length);
+
+        Game copy = GameRecords.restore(record);
+        assertNotNull(copy);
+        assertEquals(game.getBoard().getHash(), copy.getBoard().getHash());
+        assertArrayEquals(record, GameRecords.snapshot(copy));
+    }
+
+
+    @Test
+    void partialRecordAtTheEndIsIgnored() throws IOException {
+        FileGameRepository repository = open(100);
+        Game game = new Game(Constants.MEDIUM);
+        repository.save(game);
+        game.makeMove(3);
+        repository.update(game);
+        repository.close();
+
+        // A crash part way through the next write
+        Path segment;
+        try (Stream<Path> files = Files.list(journalDir)) {
+            segment = files.filter(file -> file.toString().endsWith(".log")).max(Path::compareTo).orElseThrow();
+        }
+        byte[] torn = GameRecords.snapshot(game);
+        Files.write(segment, Arrays.copyOf(torn, 9), StandardOpenOption.APPEND);
+
+        FileGameRepository restored = open(100);
+        assertEquals(1, restored.findById(game.getId()).getBoard().getMoveCount());
+        restored.close();
+    }
+
+
+    @Test
+    void journalIsCompactedOnceItHasTooManySegments() throws IOException {
+        FileGameRepository repository = open(2);
+        Game game = new Game(Constants.EASY);
+        repository.save(game);
+        for (int i = 0; i < 40 && game.getStatus() == GameStatus.IN_PROGRESS; i++) {
+            game.makeMove(game.getBoard().getValidMoves().get(0));
+            repository.update(game);
+            repository.flush();
+            assertTrue(segmentCount() <= 3);
+        }
+        repository.close();
+
+        FileGameRepository restored = open(2);
+        assertEquals(game.getBoard().getHash(), restored.findById(game.getId()).getBoard().getHash());
+        restored.close();
+    }
+
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(journalDir)) {
+            return files.filter(file -> file.toString().endsWith(".log")).count();
+        }
+    }
+}
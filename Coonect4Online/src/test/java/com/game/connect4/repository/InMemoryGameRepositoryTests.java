@@ -0,0 +1,106 @@
+package com.game.connect4.repository;
+
+import com.game.connect4.config.SessionProperties;
+import com.game.connect4.model.Game;
+import com.game.connect4.utils.Constants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryGameRepositoryTests {
+
+    private static final long MINUTE_NANOS = 60_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SessionProperties properties = createProperties();
+    private final InMemoryGameRepository repository =
+            new InMemoryGameRepository(properties, meterRegistry, clock::get);
+
+    private static SessionProperties createProperties() {
+        SessionProperties properties = new SessionProperties();
+        properties.setIdleTimeoutMs(10 * 60 * 1000L);
+        properties.setMaxSessions(3);
+        return properties;
+    }
+
+
+    @Test
+    void idleGamesAreSweptOut() {
+        Game idle = save();
+        clock.addAndGet(5 * MINUTE_NANOS);
+        Game active = save();
+        clock.addAndGet(6 * MINUTE_NANOS);
+
+        repository.evictIdleSessions();
+
+        assertNull(repository.findById(idle.getId()));
+        assertSame(active, repository.findById(active.getId()));
+        assertEquals(1.0, meterRegistry.get("connect4.sessions.evicted").tag("reason", "idle").counter().count());
+        assertEquals(1.0, meterRegistry.get("connect4.sessions.live").gauge().value());
+    }
+
+
+    @Test
+    void leastRecentlyUsedGameGoesWhenFull() {
+        Game first = save();
+        Game second = save();
+        Game third = save();
+
+        // Touching the oldest game makes the second one the least recently used
+        repository.withLock(first.getId(), game -> game);
+        clock.addAndGet(1);
+        Game fourth = save();
+
+        assertNull(repository.findById(second.getId()));
+        assertNotNull(repository.findById(first.getId()));
+        assertNotNull(repository.findById(third.getId()));
+        assertNotNull(repository.findById(fourth.getId()));
+        assertEquals(1.0, meterRegistry.get("connect4.sessions.evicted").tag("reason", "capacity").counter().count());
+    }
+
+
+    @Test
+    void gameInUseIsNeverEvicted() {
+        Game game = save();
+        clock.addAndGet(20 * MINUTE_NANOS);
+
+        repository.withLock(game.getId(), locked -> {
+            repository.evictIdleSessions();
+            return locked;
+        });
+        assertSame(game, repository.findById(game.getId()));
+
+        // Idle again once the request is done
+        clock.addAndGet(20 * MINUTE_NANOS);
+        repository.evictIdleSessions();
+        assertNull(repository.findById(game.getId()));
+    }
+
+
+    @Test
+    void bytesPerGameGrowsWithTheGame() {
+        Game game = save();
+        double empty = meterRegistry.get("connect4.sessions.bytes.per.game").gauge().value();
+
+        game.makeMove(3);
+        game.makeMove(3);
+        assertTrue(meterRegistry.get("connect4.sessions.bytes.per.game").gauge().value() > empty);
+    }
+
+
+    private Game save() {
+        Game game = new Game(Constants.EASY);
+        repository.save(game);
+        clock.addAndGet(1);
+        return game;
+    }
+}
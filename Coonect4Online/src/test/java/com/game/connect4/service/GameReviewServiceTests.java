@@ -0,0 +1,116 @@
+package com.game.connect4.service;
+
+import com.game.connect4.config.AIProperties;
+import com.game.connect4.model.GameReview;
+import com.game.connect4.model.Player;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.game.connect4.TestFixtures.aiProperties;
+import static com.game.connect4.TestFixtures.moves;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameReviewServiceTests {
+
+    private final GameReviewService reviewService = createReviewService();
+
+    private static AIProperties createProperties() {
+        AIProperties properties = aiProperties();
+        properties.setReviewDepth(6);
+        properties.setReviewThreads(2);
+        return properties;
+    }
+
+
+    private static GameReviewService createReviewService() {
+        AIProperties properties = createProperties();
+        return new GameReviewService(new AIService(properties), properties);
+    }
+
+
+    @AfterEach
+    void shutdown() {
+        reviewService.shutdown();
+    }
+
+
+    @Test
+    void flagsTheMoveThatMissesABlock() {
+        // The AI gets three in the bottom row; the player fails to block column 4 and the AI wins there
+        GameReview review = reviewService.review(moves(0, 1, 0, 2, 6, 3, 5, 4)).join();
+
+        assertEquals(8, review.getMoves().size());
+        GameReview.MoveReview missedBlock = review.getMoves().get(6);
+        assertEquals(7, missedBlock.getPly());
+        assertEquals(Player.PLAYER, missedBlock.getPlayer());
+        assertEquals(4, missedBlock.getBestColumn());
+        assertEquals("loss", missedBlock.getScoreText());
+        assertTrue(missedBlock.isBlunder());
+
+        GameReview.MoveReview win = review.getMoves().get(7);
+        assertTrue(win.isBest());
+        assertEquals("win", win.getScoreText());
+        assertFalse(win.isBlunder());
+        assertEquals(0, review.getAiBlunders());
+    }
+
+
+    @Test
+    void reviewsAreKeptByMoveSequence() {
+        GameReview first = reviewService.review(moves(3, 3, 4, 2)).join();
+        assertSame(first, reviewService.review(moves(3, 3, 4, 2)).join());
+        assertEquals(5, reviewService.review(moves(3, 3, 4, 2, 5)).join().getMoves().size());
+    }
+
+
+    @Test
+    void aSecondRequestWaitsForTheReviewAlreadyRunning() throws InterruptedException {
+        AIProperties properties = createProperties();
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        GameReviewService queued = new GameReviewService(new AIService(properties), properties, pool);
+        CountDownLatch release = new CountDownLatch(1);
+        pool.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        try {
+            CompletableFuture<GameReview> first = queued.review(moves(3, 3, 4, 2));
+            assertSame(first, queued.review(moves(3, 3, 4, 2)));
+            assertFalse(first.isDone());
+
+            release.countDown();
+            assertEquals(4, first.join().getMoves().size());
+        } finally {
+            queued.shutdown();
+        }
+    }
+
+
+    @Test
+    void noReviewStartsWhileMovesAreUnderLoad() {
+        AIProperties properties = createProperties();
+        // A hundred moves waiting for a move thread
+        SearchBudgetScheduler busy = new SearchBudgetScheduler(properties, () -> 100, System::nanoTime);
+        AIService aiService = new AIService(properties, SearchTelemetryService.disabled(), busy);
+        GameReviewService underLoad = new GameReviewService(aiService, properties);
+
+        try {
+            assertNull(underLoad.review(moves(3, 3, 4, 2)));
+        } finally {
+            underLoad.shutdown();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.game.connect4.service;
+
+import com.game.connect4.model.Board;
+import com.game.connect4.model.Player;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static com.game.connect4.TestFixtures.aiService;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IncrementalEvaluationTests {
+
+    private final AIService aiService = aiService();
+
+    @Test
+    void incrementalScoreMatchesFullScanOnRandomGames() {
+        Random random = new Random(42);
+
+        for (int game = 0; game < 2000; game++) {
+            Board board = new Board();
+            Player player = random.nextBoolean() ? Player.PLAYER : Player.AI;
+
+            while (!board.isFull()) {
+                List<Integer> validMoves = board.getValidMoves();
+                int column = validMoves.get(random.nextInt(validMoves.size()));
+                int row = board.makeMove(column, player);
+                int depth = random.nextInt(8);
+
+                assertEquals(aiService.evaluateBoardByScan(board, depth), aiService.evaluateBoard(board, depth),
+                        () -> "Scores differ on\n" + board);
+
+                if (board.checkWin(row, column, player)) {
+                    break;
+                }
+                player = player.getOpponent();
+            }
+        }
+    }
+
+
+    @Test
+    void incrementalScoreMatchesFullScanAfterSearchUndo() {
+        assertScoresMatchWhileUnwinding(new Random(7), true);
+    }
+
+
+    @Test
+    void incrementalScoreMatchesFullScanAfterUndo() {
+        assertScoresMatchWhileUnwinding(new Random(11), false);
+    }
+
+
+    @Test
+    void undoMoveRejectsAColumnThatWasNotPlayedLast() {
+        Board board = new Board();
+        board.makeMove(3, Player.PLAYER);
+        board.makeMove(4, Player.AI);
+
+        assertThrows(IllegalArgumentException.class, () -> board.undoMove(3));
+
+        board.undoMove(4);
+        board.undoMove(3);
+        assertEquals(0, board.getMoveCount());
+        assertEquals(-1, board.getLastColumn());
+    }
+
+
+    // Plays part of a game and unwinds it, through the search methods or through makeMove/undoMove,
+    // comparing the scores on the way back
+    private void assertScoresMatchWhileUnwinding(Random random, boolean searchMoves) {
+        for (int game = 0; game < 500; game++) {
+            Board board = new Board();
+            Player player = Player.PLAYER;
+            int plies = 1 + random.nextInt(30);
+
+            for (int i = 0; i < plies && !board.isFull(); i++) {
+                List<Integer> validMoves = board.getValidMoves();
+                int column = validMoves.get(random.nextInt(validMoves.size()));
+                if (searchMoves) {
+                    board.makeSearchMove(column, player);
+                } else {
+                    board.makeMove(column, player);
+                }
+                player = player.getOpponent();
+            }
+
+            int undo = random.nextInt(board.getMoveCount() + 1);
+            for (int i = 0; i < undo; i++) {
+                if (searchMoves) {
+                    board.undoSearchMove();
+                } else {
+                    board.undoMove(board.getLastColumn());
+                }
+                assertEquals(aiService.evaluateBoardByScan(board, 0), aiService.evaluateBoard(board, 0),
+                        () -> "Scores differ after undo on\n" + board);
+            }
+            if (!searchMoves) {
+                assertEquals(board.getMoveCount(), board.getMoveHistory().size());
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.game.connect4.service;
+
+import com.game.connect4.config.AIProperties;
+import com.game.connect4.config.SessionProperties;
+import com.game.connect4.model.Board;
+import com.game.connect4.model.Game;
+import com.game.connect4.model.Player;
+import com.game.connect4.model.SearchResult;
+import com.game.connect4.repository.InMemoryGameRepository;
+import com.game.connect4.utils.Constants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static com.game.connect4.TestFixtures.aiProperties;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PonderServiceTests {
+
+    private final AIService aiService = createAIService();
+    private final PonderService ponderService = new PonderService(aiService, createProperties());
+    private final GameService gameService = new GameService(aiService, new AnalysisService(), ponderService,
+            new InMemoryGameRepository(new SessionProperties(), new SimpleMeterRegistry()));
+
+    private static AIProperties createProperties() {
+        AIProperties properties = aiProperties();
+        properties.setTranspositionTableMb(4);
+        properties.setPonderThreads(1);
+        return properties;
+    }
+
+    private static AIService createAIService() {
+        return new AIService(createProperties());
+    }
+
+
+    @AfterEach
+    void shutdown() {
+        ponderService.shutdown();
+    }
+
+
+    @Test
+    void replyIsAnsweredFromThePonderedResults() throws InterruptedException {
+        Game game = gameService.createGame(Constants.HARD);
+        gameService.makePlayerMove(game.getId(), 3);
+        gameService.makeAIMove(game.getId());
+        assertEquals(1, ponderService.getPondersStarted());
+
+        // Wait until the ponder thread has covered every reply, so it is idle from here on
+        for (int column = 0; column < Constants.COLUMNS; column++) {
+            Board afterReply = new Board(game.getBoard());
+            afterReply.makeMove(column, Player.PLAYER);
+            for (int i = 0; i < 200 && game.getPonderedResult(afterReply.getHash()) == null; i++) {
+                Thread.sleep(50);
+            }
+            assertNotNull(game.getPonderedResult(afterReply.getHash()));
+        }
+        Board afterReply = new Board(game.getBoard());
+        afterReply.makeMove(3, Player.PLAYER);
+        SearchResult pondered = game.getPonderedResult(afterReply.getHash());
+
+        gameService.makePlayerMove(game.getId(), 3);
+        gameService.makeAIMove(game.getId());
+
+        // The same result object, so neither grading the move nor the reply searched again. (Counting
+        // searches would race with the pondering that starts again after the reply.)
+        assertSame(pondered, game.getLastSearch());
+    }
+
+
+    @Test
+    void lowerLevelsAreNotPondered() {
+        Game game = gameService.createGame(Constants.MEDIUM);
+        gameService.makePlayerMove(game.getId(), 3);
+        gameService.makeAIMove(game.getId());
+
+        // Nothing was handed to the ponder pool, so no search can start later either
+        assertEquals(0, ponderService.getPondersStarted());
+    }
+}
@@ -0,0 +1,104 @@
+package com.game.connect4.service;
+
+import com.game.connect4.config.AIProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchBudgetSchedulerTests {
+
+    private static final long MILLIS_NANOS = 1_000_000L;
+    private static final long SECOND_NANOS = 1_000_000_000L;
+
+    private final AtomicInteger queuedMoves = new AtomicInteger();
+    private final AtomicLong clock = new AtomicLong();
+    private final SearchBudgetScheduler scheduler =
+            new SearchBudgetScheduler(createProperties(), queuedMoves::get, clock::get);
+
+    private static AIProperties createProperties() {
+        AIProperties properties = new AIProperties();
+        properties.setMoveThreads(2);
+        properties.setTargetQueueWaitMs(1000);
+        properties.setMinBudgetScale(0.25);
+        return properties;
+    }
+
+
+    @Test
+    void idleServerGivesFullBudgets() {
+        try (SearchBudgetScheduler.Lease first = scheduler.acquire();
+             SearchBudgetScheduler.Lease second = scheduler.acquire()) {
+            assertEquals(1.0, first.getBudgetScale());
+            assertEquals(1.0, second.getBudgetScale());
+        }
+        assertFalse(scheduler.isUnderLoad());
+    }
+
+
+    @Test
+    void queuedMovesShrinkTheBudget() {
+        queuedMoves.set(2);
+        try (SearchBudgetScheduler.Lease lease = scheduler.acquire()) {
+            // Three moves for two threads
+            assertEquals(2.0 / 3.0, lease.getBudgetScale(), 1e-9);
+            assertTrue(scheduler.isUnderLoad());
+        }
+
+        queuedMoves.set(100);
+        try (SearchBudgetScheduler.Lease lease = scheduler.acquire()) {
+            assertEquals(0.25, lease.getBudgetScale());
+        }
+    }
+
+
+    @Test
+    void fullBudgetsReturnOnceTheBacklogClears() {
+        SearchBudgetScheduler.Lease first = scheduler.acquire();
+        SearchBudgetScheduler.Lease second = scheduler.acquire();
+        assertTrue(scheduler.isUnderLoad());
+
+        second.close();
+        // Closing twice releases once
+        second.close();
+        try (SearchBudgetScheduler.Lease third = scheduler.acquire()) {
+            assertEquals(1.0, third.getBudgetScale());
+        }
+        first.close();
+        assertFalse(scheduler.isUnderLoad());
+    }
+
+
+    @Test
+    void longQueueWaitsShrinkTheBudgetUntilTheyAge() {
+        for (int i = 0; i < 50; i++) {
+            scheduler.recordQueueWait(200 * MILLIS_NANOS);
+        }
+        scheduler.recordQueueWait(2000 * MILLIS_NANOS);
+        try (SearchBudgetScheduler.Lease lease = scheduler.acquire()) {
+            // The p99 is the long wait, at twice the target
+            assertEquals(0.5, lease.getBudgetScale(), 1e-9);
+        }
+
+        clock.addAndGet(31 * SECOND_NANOS);
+        assertFalse(scheduler.isUnderLoad());
+    }
+
+
+    @Test
+    void disabledSchedulerNeverShrinksTheBudget() {
+        AIProperties properties = createProperties();
+        properties.setAdaptiveBudget(false);
+        SearchBudgetScheduler disabled = new SearchBudgetScheduler(properties, () -> 100, clock::get);
+        disabled.recordQueueWait(60 * SECOND_NANOS);
+
+        try (SearchBudgetScheduler.Lease lease = disabled.acquire()) {
+            assertEquals(1.0, lease.getBudgetScale());
+        }
+        assertFalse(disabled.isUnderLoad());
+    }
+}
@@ -0,0 +1,83 @@
+package com.game.connect4.service;
+
+import com.game.connect4.config.TelemetryProperties;
+import com.game.connect4.model.Game;
+import com.game.connect4.model.SearchTelemetry;
+import com.game.connect4.model.SearchTelemetryReport;
+import com.game.connect4.utils.Constants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.game.connect4.TestFixtures.aiProperties;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchTelemetryServiceTests {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private SearchTelemetryService createTelemetry(boolean enabled, int historySize) {
+        TelemetryProperties properties = new TelemetryProperties();
+        properties.setEnabled(enabled);
+        properties.setHistorySize(historySize);
+        return new SearchTelemetryService(properties, meterRegistry);
+    }
+
+
+    @Test
+    void searchIsRecordedForItsGame() {
+        SearchTelemetryService telemetry = createTelemetry(true, 100);
+        AIService aiService = new AIService(aiProperties(), telemetry);
+        Game game = new Game(Constants.MEDIUM);
+        game.makeMove(3);
+        aiService.findBestMove(game);
+
+        SearchTelemetryReport report = telemetry.report(game.getId());
+        assertEquals(1, report.getSearches().size());
+        SearchTelemetry search = report.getSearches().get(0);
+        assertEquals(SearchTelemetry.Source.SEARCH, search.getSource());
+        assertEquals(1, search.getPly());
+        assertEquals(Constants.MEDIUM, search.getDepth());
+        assertTrue(search.getNodes() > 0);
+        assertTrue(search.getLeafEvaluations() > 0 && search.getLeafEvaluations() < search.getNodes());
+        assertTrue(search.getTableProbes() > 0);
+        assertTrue(search.getDurationNanos() > 0);
+
+        assertEquals(search.getNodes(), report.getOverall().getNodes());
+        assertEquals(1, report.getByDifficulty().get(Constants.MEDIUM).getSearches());
+        assertEquals(1, meterRegistry.get("connect4.search.time").tag("difficulty", "3").timer().count());
+        assertEquals((double) search.getTableHits(),
+                meterRegistry.get("connect4.search.table.hits").counter().count());
+    }
+
+
+    @Test
+    void historyKeepsOnlyTheMostRecentSearches() {
+        SearchTelemetryService telemetry = createTelemetry(true, 3);
+        for (int i = 0; i < 5; i++) {
+            telemetry.record(new SearchTelemetry("game-" + i, Constants.EASY, 0, false));
+        }
+
+        List<SearchTelemetry> recent = telemetry.getRecentSearches();
+        assertEquals(3, recent.size());
+        assertEquals("game-2", recent.get(0).getGameId());
+        assertEquals("game-4", recent.get(2).getGameId());
+        assertEquals(3, telemetry.report().getOverall().getSearches());
+    }
+
+
+    @Test
+    void disabledTelemetryKeepsNothing() {
+        SearchTelemetryService telemetry = createTelemetry(false, 100);
+        AIService aiService = new AIService(aiProperties(), telemetry);
+        Game game = new Game(Constants.EASY);
+        game.makeMove(3);
+        aiService.findBestMove(game);
+
+        assertTrue(telemetry.getRecentSearches().isEmpty());
+        assertTrue(meterRegistry.find("connect4.search.time").timers().isEmpty());
+    }
+}
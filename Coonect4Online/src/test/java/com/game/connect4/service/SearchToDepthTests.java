@@ -0,0 +1,132 @@
+package com.game.connect4.service;
+
+import com.game.connect4.ai.Bitboards;
+import com.game.connect4.ai.SearchContext;
+import com.game.connect4.ai.Tactics;
+import com.game.connect4.config.AIProperties;
+import com.game.connect4.model.Board;
+import com.game.connect4.model.Player;
+import com.game.connect4.model.SearchResult;
+import com.game.connect4.utils.Constants;
+import org.junit.jupiter.api.Test;
+
+import static com.game.connect4.TestFixtures.aiProperties;
+import static com.game.connect4.TestFixtures.aiService;
+import static com.game.connect4.TestFixtures.play;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SearchToDepthTests {
+
+    // The benchmarks' position corpus: odd numbers of plies from 5 to 27, the AI to move
+    private static final String[] CORPUS = {
+            "41043",
+            "3214312",
+            "600133320",
+            "33436332402",
+            "6542351161552",
+            "523104341316434",
+            "52553444412423323",
+            "4621662334304143442",
+            "146230432314443232523",
+            "22433243263336246625650",
+            "3315023323014030020624526",
+            "333332624310450065001144414"
+    };
+
+    private final AIService aiService = aiService();
+
+    @Test
+    void searchScoresMatchPlainNegamax() {
+        for (String moves : CORPUS) {
+            Board board = play(moves.chars().map(move -> move - '0').toArray());
+            for (int depth = 1; depth <= 5; depth++) {
+                // Cold tables, so no deeper entry from an earlier search stands in for this depth
+                aiService.clearSearchTables();
+                SearchResult result = aiService.searchToDepth(board, Player.AI, depth, SearchContext.withoutDeadline());
+
+                // A proven result ends the search before the depth asked for
+                int searched = result.getDepth();
+                assertEquals(referenceRoot(new Board(board), searched), result.getBestScore(),
+                        "Scores differ at depth " + searched + " after " + moves);
+            }
+        }
+    }
+
+
+    @Test
+    void parallelSearchScoresMatchTheSequentialOnes() {
+        AIProperties properties = aiProperties();
+        properties.setSearchThreads(4);
+        AIService parallelService = new AIService(properties);
+        try {
+            for (String moves : CORPUS) {
+                Board board = play(moves.chars().map(move -> move - '0').toArray());
+                aiService.clearSearchTables();
+                parallelService.clearSearchTables();
+                SearchResult sequential = aiService.searchToDepth(board, Player.AI, 7, SearchContext.withoutDeadline());
+                SearchResult parallel = parallelService.searchToDepth(board, Player.AI, 7, true,
+                        SearchContext.withoutDeadline());
+
+                // Ties may go to another column, but the best score is the same
+                assertEquals(sequential.getDepth(), parallel.getDepth(), "Depths differ after " + moves);
+                assertEquals(sequential.getBestScore(), parallel.getBestScore(), "Scores differ after " + moves);
+            }
+        } finally {
+            parallelService.shutdown();
+        }
+    }
+
+
+    // The root as iterativeDeepening sees it: columns that hand the opponent a win on the spot are
+    // left out unless there is a win to take or every column loses
+    private int referenceRoot(Board board, int depth) {
+        long position = board.getBitboard(Player.AI);
+        long mask = position | board.getBitboard(Player.PLAYER);
+        long nonLosing = Tactics.nonLosingMoves(position, mask);
+        boolean prune = nonLosing != 0 && !Tactics.canWinNext(position, mask);
+
+        int best = Integer.MIN_VALUE;
+        for (int column : board.getValidMoves()) {
+            if (prune && (nonLosing & Bitboards.columnMask(column)) == 0) {
+                continue;
+            }
+            int row = board.makeSearchMove(column, Player.AI);
+            int score = board.checkWin(row, column, Player.AI)
+                    ? Constants.WIN_SCORE + depth - 1
+                    : -reference(board, depth - 1, Player.PLAYER);
+            board.undoSearchMove();
+            best = Math.max(best, score);
+        }
+        return best;
+    }
+
+
+    // Negamax over every move the search would look at, with no cutoffs, table or move ordering.
+    // Wins on the spot and positions where every move loses are scored as the search scores them.
+    private int reference(Board board, int depth, Player player) {
+        if (depth == 0 || board.isFull()) {
+            int score = aiService.evaluateBoard(board, depth);
+            return player == Player.AI ? score : -score;
+        }
+
+        long position = board.getBitboard(player);
+        long mask = position | board.getBitboard(player.getOpponent());
+        if (Tactics.canWinNext(position, mask)) {
+            return Constants.WIN_SCORE + depth - 1;
+        }
+        long nonLosing = Tactics.nonLosingMoves(position, mask);
+        if (nonLosing == 0) {
+            return -(Constants.WIN_SCORE + depth - 2);
+        }
+
+        int best = Integer.MIN_VALUE;
+        for (int column : board.getValidMoves()) {
+            if ((nonLosing & Bitboards.columnMask(column)) != 0) {
+                board.makeSearchMove(column, player);
+                best = Math.max(best, -reference(board, depth - 1, player.getOpponent()));
+                board.undoSearchMove();
+            }
+        }
+        return best;
+    }
+}
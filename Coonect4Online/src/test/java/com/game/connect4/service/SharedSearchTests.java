@@ -0,0 +1,120 @@
+package com.game.connect4.service;
+
+import com.game.connect4.ai.Tactics;
+import com.game.connect4.model.Board;
+import com.game.connect4.model.Game;
+import com.game.connect4.model.GameStatus;
+import com.game.connect4.model.Move;
+import com.game.connect4.model.Player;
+import com.game.connect4.model.SearchResult;
+import com.game.connect4.utils.Constants;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static com.game.connect4.TestFixtures.aiService;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SharedSearchTests {
+
+    private final AIService aiService = aiService();
+
+    @Test
+    void gradeAndReplyShareOneSearch() {
+        Random random = new Random(5);
+
+        for (int i = 0; i < 30; i++) {
+            // An odd number of plies, so the AI is to move as it is after the player's move
+            Game game = new Game(Constants.MEDIUM);
+            int plies = 2 * random.nextInt(6) + 1;
+            for (int ply = 0; ply < plies && game.getStatus() == GameStatus.IN_PROGRESS; ply++) {
+                List<Integer> validMoves = game.getBoard().getValidMoves();
+                game.makeMove(validMoves.get(random.nextInt(validMoves.size())));
+            }
+            // Threats alone settle some positions without a search
+            if (game.getStatus() != GameStatus.IN_PROGRESS || isSettledByTactics(game.getBoard())) {
+                continue;
+            }
+
+            long searchesBefore = aiService.getSearchStatistics().getSearches();
+            int grade = aiService.evaluatePlayerMove(game, game.getBoard().getLastColumn());
+            Move reply = aiService.findBestMove(game);
+            assertEquals(searchesBefore + 1, aiService.getSearchStatistics().getSearches());
+
+            SearchResult result = game.getLastSearch();
+            assertSame(result, aiService.analyzePosition(game));
+            assertEquals(-grade, result.getBestScore());
+            assertEquals(result.getBestColumn(), reply.getColumn());
+
+            // A move search scores the best column exactly and no other column above it
+            for (int column = 0; column < Constants.COLUMNS; column++) {
+                if (!game.getBoard().isValidMove(column)) {
+                    assertEquals(SearchResult.NO_SCORE, result.getColumnScore(column));
+                } else if (column != result.getBestColumn()) {
+                    assertTrue(result.getColumnScore(column) < result.getBestScore());
+                }
+            }
+            assertEquals(result.getBestScore(), result.getColumnScore(result.getBestColumn()));
+        }
+    }
+
+
+    private static boolean isSettledByTactics(Board board) {
+        long position = board.getBitboard(Player.AI);
+        long mask = position | board.getBitboard(Player.PLAYER);
+        long nonLosing = Tactics.nonLosingMoves(position, mask);
+        return Tactics.canWinNext(position, mask) || Long.bitCount(nonLosing) <= 1
+                || Tactics.doubleThreatMoves(position, mask, nonLosing) != 0;
+    }
+
+
+    @Test
+    void gamesReachingTheSamePositionShareOneSearch() {
+        Game first = new Game(Constants.HARD);
+        Game second = new Game(Constants.HARD);
+        for (int column : new int[]{3, 3, 2}) {
+            first.makeMove(column);
+            second.makeMove(column);
+        }
+
+        Move reply = aiService.findBestMove(first);
+        long searchesBefore = aiService.getSearchStatistics().getSearches();
+        assertEquals(reply.getColumn(), aiService.findBestMove(second).getColumn());
+        assertEquals(searchesBefore, aiService.getSearchStatistics().getSearches());
+        assertSame(first.getLastSearch(), second.getLastSearch());
+
+        // Another level is another search
+        second.setDifficultyLevel(Constants.MEDIUM);
+        aiService.findBestMove(second);
+        assertEquals(searchesBefore + 1, aiService.getSearchStatistics().getSearches());
+    }
+
+
+    @Test
+    void searchesClippedByTheDeadlineAreNotShared() {
+        Game first = new Game(Constants.HARD);
+        Game second = new Game(Constants.HARD);
+        for (int column : new int[]{3, 3, 2}) {
+            first.makeMove(column);
+            second.makeMove(column);
+        }
+
+        // A move that waited in the queue gets what is left of its deadline, far less than the budget
+        aiService.findBestMove(first, System.nanoTime() + 1_000_000L);
+        long searchesBefore = aiService.getSearchStatistics().getSearches();
+        aiService.findBestMove(second);
+        assertEquals(searchesBefore + 1, aiService.getSearchStatistics().getSearches());
+
+        // The full search is shared
+        Game third = new Game(Constants.HARD);
+        for (int column : new int[]{3, 3, 2}) {
+            third.makeMove(column);
+        }
+        aiService.findBestMove(third);
+        assertEquals(searchesBefore + 1, aiService.getSearchStatistics().getSearches());
+        assertSame(second.getLastSearch(), third.getLastSearch());
+    }
+}
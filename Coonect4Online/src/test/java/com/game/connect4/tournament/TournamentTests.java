@@ -0,0 +1,69 @@
+package com.game.connect4.tournament;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TournamentTests {
+
+    @Test
+    void eloAndConfidenceIntervalFollowTheScore() {
+        MatchStatistics statistics = new MatchStatistics(0, 10, 0.05, 0.05);
+        for (int i = 0; i < 60; i++) {
+            statistics.addGame(1);
+        }
+        for (int i = 0; i < 20; i++) {
+            statistics.addGame(0);
+        }
+        for (int i = 0; i < 20; i++) {
+            statistics.addGame(-1);
+        }
+
+        assertEquals(0.7, statistics.getScore(), 1e-9);
+        assertEquals(147.2, statistics.getElo(), 0.1);
+        assertTrue(statistics.getEloLower() < statistics.getElo() && statistics.getElo() < statistics.getEloUpper());
+        assertEquals(0.5, MatchStatistics.toScore(0), 1e-9);
+        assertEquals(100, MatchStatistics.toElo(MatchStatistics.toScore(100)), 1e-9);
+    }
+
+
+    @Test
+    void sprtDecidesOnceTheEvidenceIsClear() {
+        MatchStatistics stronger = new MatchStatistics(0, 10, 0.05, 0.05);
+        MatchStatistics even = new MatchStatistics(0, 10, 0.05, 0.05);
+        assertEquals(MatchStatistics.Decision.CONTINUE, stronger.getDecision());
+
+        for (int i = 0; i < 10000; i++) {
+            stronger.addGame(i % 5 == 0 ? -1 : 1);
+            even.addGame(i % 2 == 0 ? -1 : 1);
+        }
+        assertEquals(MatchStatistics.Decision.ACCEPT_ELO1, stronger.getDecision());
+        assertEquals(MatchStatistics.Decision.ACCEPT_ELO0, even.getDecision());
+    }
+
+
+    @Test
+    void openingsDependOnlyOnTheSeed() {
+        List<int[]> openings = Tournament.createOpenings(20, 4, 7);
+        List<int[]> again = Tournament.createOpenings(20, 4, 7);
+        for (int i = 0; i < openings.size(); i++) {
+            assertArrayEquals(openings.get(i), again.get(i));
+        }
+    }
+
+
+    @Test
+    void deeperEngineBeatsTheShallowOne() throws InterruptedException {
+        MatchStatistics statistics = new MatchStatistics(0, 10, 0.05, 0.05);
+        Tournament.play(EngineSpec.parse("medium"), EngineSpec.parse("1,tt=1"), 40, 4, 1, 4, false, statistics);
+
+        assertEquals(40, statistics.getGames());
+        assertTrue(statistics.getScore() > 0.6, statistics.report(EngineSpec.parse("medium"), EngineSpec.parse("1")));
+        assertTrue(statistics.getAverageMoveMs(0) > 0);
+        assertTrue(statistics.getNodesPerSecond(0) > 0);
+    }
+}